@@ -0,0 +1,99 @@
+package study.querydsl.bench;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 로컬 H2 서버 대신 인메모리 H2를 띄우고 SQL 로그, 초기 데이터(InitMember)는 끈다.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=bench",
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                //검색 경로 자체의 비용을 재기 위해 결과 캐시는 끈다
+                "--member.search.result-cache.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.type.descriptor.sql=warn"
+        ));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(QuerydslApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /**
+     * teams 개의 팀에 members 명을 고르게 나눠 저장한다.
+     * 회원 이름은 member0 ~ member(n-1), 나이는 0 ~ 99 를 순환한다.
+     */
+    public static void seed(ConfigurableApplicationContext context, int members, int teams) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.executeWithoutResult(status -> {
+            List<Team> saved = new ArrayList<>();
+            for (int i = 0; i < teams; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                saved.add(team);
+            }
+            for (int i = 0; i < members; i++) {
+                Member member = new Member("member" + i, i % 100);
+                member.setTeam(em.getReference(Team.class, saved.get(i % teams).getId()));
+                em.persist(member);
+                if (i % 1000 == 999) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+
+    public static TransactionTemplate readOnlyTx(ConfigurableApplicationContext context) {
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(true);
+        return tx;
+    }
+
+    /**
+     * 벤치마크 파라미터 이름으로 검색 조건 생성
+     */
+    public static MemberSearchCondition condition(String predicates) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        switch (predicates) {
+            case "NONE" -> {
+            }
+            case "USERNAME" -> condition.setUsername("member42");
+            case "TEAM" -> condition.setTeamName("team3");
+            case "AGE_RANGE" -> {
+                condition.setAgeGoe(20);
+                condition.setAgeLoe(40);
+            }
+            case "ALL" -> {
+                condition.setUsername("member42");
+                condition.setTeamName("team2");
+                condition.setAgeGoe(20);
+                condition.setAgeLoe(60);
+            }
+            default -> throw new IllegalArgumentException("알 수 없는 조건: " + predicates);
+        }
+        return condition;
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대량 검색 결과 형식 비교
+ * search: List<MemberTeamDto> (행마다 DTO + 박싱된 Long/Integer + String)
+ * searchColumnar: 원시 타입 배열 + 회원 이름 배열 + 사전 인코딩된 팀 이름 (MemberColumns)
+ * -prof gc 의 gc.alloc.rate.norm 으로 호출당 할당량을, gc.count/gc.time 으로 GC 부담을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberColumnarBenchmark {
+
+    @Param({"100000"})
+    public int members;
+
+    @Param({"NONE", "AGE_RANGE"})
+    public String predicates;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, members, 10);
+        memberRepository = context.getBean(MemberRepository.class);
+        condition = BenchmarkContext.condition(predicates);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dtoList() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public MemberColumns columnar() {
+        return memberRepository.searchColumnar(condition);
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.bench;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InitMember 와 같은 방식(팀 2개, 회원을 번갈아 저장)의 insert 처리량
+ * idGenerator=IDENTITY 는 기존 매핑(META-INF/identity-ids.xml 로 덮어씀)으로, persist 마다 insert 하고 배치가 꺼진다.
+ * SEQUENCE 는 엔티티의 pooled 시퀀스, batchSize=50 과 함께 쓰면 JDBC 배치까지 사용한다.
+ * 변경 전은 IDENTITY/1, 변경 후는 SEQUENCE/50 이고, SEQUENCE/1 로 시퀀스와 배치의 몫을 나눠 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberInsertBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"IDENTITY", "SEQUENCE"})
+    public String idGenerator;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        if (idGenerator.equals("IDENTITY")) {
+            args.add("--spring.jpa.mapping-resources=META-INF/identity-ids.xml");
+        }
+        context = BenchmarkContext.start(args.toArray(String[]::new));
+        em = context.getBean(EntityManager.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertMembers() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 페이징 검색 지연 시간
+ * searchPageSimple - parallelCount=false: content -> count 순차 실행, true: 각자의 트랜잭션에서 동시에 실행
+ * searchPageWindowed - count(*) over() 로 한 번에 조회 (parallelCount 와 무관)
+ * 페이지 크기와 조건의 선택도(NONE 넓음, AGE_RANGE 중간, TEAM 좁음)를 바꿔가며 비교한다.
+ * 트랜잭션 밖에서 호출하고(컨트롤러와 같은 조건) 카운트 캐시는 끈다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberPageBenchmark {
+
+    @Param({"100000"})
+    public int members;
+
+    @Param({"NONE", "AGE_RANGE", "TEAM"})
+    public String predicates;
+
+    @Param({"false", "true"})
+    public boolean parallelCount;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private MemberSearchCondition condition;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "--member.search.count-cache.enabled=false",
+                "--member.search.parallel-count=" + parallelCount);
+        BenchmarkContext.seed(context, members, 10);
+        memberRepository = context.getBean(MemberRepository.class);
+        condition = BenchmarkContext.condition(predicates);
+        pageable = PageRequest.of(10, pageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageWindowed() {
+        return memberRepository.searchPageWindowed(condition, pageable);
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.bench;
+
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberSearchQueries;
+import study.querydsl.repository.MemberSearchShape;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * DB 왕복을 뺀 쿼리 준비 비용 비교 (-prof gc 로 호출당 할당량 확인)
+ * querydsl: V3 searchByBuilder 처럼 조건마다 BooleanExpression 을 만들고 JPQL로 직렬화
+ * compiled: 같은 쿼리를 모양별로 한 번만 직렬화해 둔 JPQL 조회 (MemberSearchQueries)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MemberQueryBuildBenchmark {
+
+    @Param({"NONE", "USERNAME", "TEAM", "AGE_RANGE", "ALL"})
+    public String predicates;
+
+    private MemberSearchCondition condition;
+
+    @Setup
+    public void setUp() {
+        condition = BenchmarkContext.condition(predicates);
+    }
+
+    @Benchmark
+    public String querydsl() {
+        return new JPAQuery<>((EntityManager) null, HQLTemplates.DEFAULT)
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        condition.getUsername() != null ? member.username.eq(condition.getUsername()) : null,
+                        condition.getTeamName() != null ? team.name.eq(condition.getTeamName()) : null,
+                        condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                        condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null
+                )
+                .toString();
+    }
+
+    @Benchmark
+    public String compiled() {
+        return MemberSearchQueries.searchJpql(MemberSearchShape.of(MemberSearchKey.from(condition)));
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepositoryV1;
+import study.querydsl.repository.MemberJpaRepositoryV2;
+import study.querydsl.repository.MemberJpaRepositoryV3;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchQueries;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 검색을 구현한 방식 비교
+ * V1: JPQL 문자열 조립, V2: BooleanBuilder, V3: BooleanExpression 메서드, MemberRepositoryImpl: 사용자 정의 리포지토리
+ * compiled: V3 와 같은 Querydsl 쿼리를 모양별로 한 번만 직렬화해 둔 JPQL (MemberSearchQueries, 결과 캐시 없음)
+ * Throughput 과 SampleTime(지연 시간 백분위수)을 함께 측정하고 -prof gc 로 할당률을 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberSearchBenchmark {
+
+    @Param({"10000"})
+    public int members;
+
+    @Param({"NONE", "USERNAME", "TEAM", "AGE_RANGE", "ALL"})
+    public String predicates;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnlyTx;
+    private MemberSearchCondition condition;
+
+    private MemberJpaRepositoryV1 v1;
+    private MemberJpaRepositoryV2 v2;
+    private MemberJpaRepositoryV3 v3;
+    private MemberRepository memberRepository;
+    private MemberSearchQueries searchQueries;
+    private MemberSearchKey key;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, members, 10);
+        readOnlyTx = BenchmarkContext.readOnlyTx(context);
+        condition = BenchmarkContext.condition(predicates);
+
+        v1 = context.getBean(MemberJpaRepositoryV1.class);
+        v2 = context.getBean(MemberJpaRepositoryV2.class);
+        v3 = context.getBean(MemberJpaRepositoryV3.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        searchQueries = context.getBean(MemberSearchQueries.class);
+        key = MemberSearchKey.from(condition);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> v1Jpql() {
+        return readOnlyTx.execute(status -> v1.search(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> v2BooleanBuilder() {
+        return readOnlyTx.execute(status -> v2.searchByBuilder(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> v3BooleanExpression() {
+        return readOnlyTx.execute(status -> v3.searchByBuilder(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> customRepository() {
+        return readOnlyTx.execute(status -> memberRepository.search(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> compiled() {
+        return readOnlyTx.execute(status -> searchQueries.search(key));
+    }
+}
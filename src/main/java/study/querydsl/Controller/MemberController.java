@@ -1,32 +1,122 @@
 package study.querydsl.Controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorResponse;
+import study.querydsl.dto.MemberImportResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TotalMode;
 import study.querydsl.repository.MemberJpaRepositoryV3;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.MemberBulkImporter;
+import study.querydsl.service.MemberExportService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_SIZE = 100;
+
     private final MemberJpaRepositoryV3 repository;
     private final MemberRepository memberRepository;
+    private final MemberExportService exportService;
+    private final MemberBulkImporter bulkImporter;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(@ModelAttribute MemberSearchCondition condition) {
-        return repository.searchByBuilder(condition);
+        return repository.searchHedged(condition);
+    }
+
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMemberV1(@ModelAttribute MemberSearchCondition condition,
+                                                                @RequestParam(defaultValue = "NDJSON") MemberExportService.Format format) {
+        StreamingResponseBody body = out -> exportService.export(condition, format, out);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(body);
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(@ModelAttribute MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public CountedPage<MemberTeamDto> searchMemberV2(@ModelAttribute MemberSearchCondition condition, Pageable pageable,
+                                                     @RequestParam(defaultValue = "EXACT") TotalMode total) {
+        return memberRepository.searchPage(condition, pageable, total);
+    }
+
+    /**
+     * 전체 개수가 필요 없는 무한 스크롤용, count 쿼리를 실행하지 않는다
+     */
+    @GetMapping("/v2/members/slice")
+    public Slice<MemberTeamDto> searchMemberV2Slice(@ModelAttribute MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    @GetMapping("/v3/members")
+    public MemberCursorResponse searchMemberV3(@ModelAttribute MemberSearchCondition condition,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "ID") MemberCursor.Sort sort,
+                                               @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size는 1 이상 " + MAX_CURSOR_SIZE + " 이하여야 합니다.");
+        }
+        //커서가 있으면 커서에 담긴 정렬 기준을 따른다
+        MemberCursor current = cursor == null ? MemberCursor.first(sort) : decode(cursor);
+        Slice<MemberTeamDto> slice = memberRepository.searchByCursor(condition, current, size);
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            List<MemberTeamDto> content = slice.getContent();
+            nextCursor = MemberCursor.after(current.getSort(), content.get(content.size() - 1)).encode();
+        }
+        return new MemberCursorResponse(slice.getContent(), slice.hasNext(), nextCursor);
+    }
+
+    /**
+     * NDJSON(application/x-ndjson) 또는 CSV(text/csv, username,age,teamName) 본문을 스트리밍으로 읽어 등록
+     */
+    @PostMapping("/members/bulk")
+    public MemberImportResult importMembers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                            InputStream body) throws IOException {
+        MemberBulkImporter.Format format;
+        if (contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+            format = MemberBulkImporter.Format.CSV;
+        } else if (contentType.isCompatibleWith(MediaType.parseMediaType("application/x-ndjson"))) {
+            format = MemberBulkImporter.Format.NDJSON;
+        } else {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "지원하지 않는 형식입니다: " + contentType);
+        }
+
+        try {
+            return bulkImporter.importMembers(body, format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private MemberCursor decode(String cursor) {
+        try {
+            return MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,21 @@
+package study.querydsl.Controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.cache.TeamStatsCache;
+import study.querydsl.dto.TeamStats;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsCache teamStats;
+
+    @GetMapping("/teams/stats")
+    public List<TeamStats> teamStats() {
+        return teamStats.stats();
+    }
+}
@@ -0,0 +1,139 @@
+package study.querydsl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TotalMode;
+import study.querydsl.repository.MemberJpaRepositoryV3;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchShape;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 API 워밍업
+ * 배포 직후에는 하이버네이트 쿼리 플랜 캐시, Querydsl 직렬화, JIT가 모두 차가워서 첫 요청들이 느리다.
+ * 모든 검색 조건 모양(16가지)으로 컨트롤러가 실제로 호출하는 리포지토리 메서드를 미리 호출한다.
+ * /v1 hedged 검색, /v2 페이징(전체 개수 방식별로 경로가 다르다), /v2 slice, /v3 커서(정렬별)
+ * 그리고 함께 제공하는 searchPageWindowed, searchColumnar 까지 데운다.
+ * ApplicationRunner 가 끝나야 readiness 가 ACCEPTING_TRAFFIC 으로 바뀌므로 워밍업이 끝난 뒤에 트래픽을 받는다.
+ * 첫 호출(cold)과 마지막 호출(warm) 지연 시간을 member.warmup.latency 타이머와 로그로 남긴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.warmup.enabled", havingValue = "true")
+public class SearchWarmUp implements ApplicationRunner {
+
+    private final MemberJpaRepositoryV3 repository;
+    private final MemberRepository memberRepository;
+    private final MemberSearchResultCache resultCache;
+    private final MemberCountCache countCache;
+    private final TransactionTemplate readOnlyTx;
+    private final MeterRegistry meterRegistry;
+    private final int iterations;
+
+    public SearchWarmUp(MemberJpaRepositoryV3 repository,
+                        MemberRepository memberRepository,
+                        MemberSearchResultCache resultCache,
+                        MemberCountCache countCache,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${member.warmup.iterations:200}") int iterations) {
+        this.repository = repository;
+        this.memberRepository = memberRepository;
+        this.resultCache = resultCache;
+        this.countCache = countCache;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        Map<String, Runnable> paths = new LinkedHashMap<>();
+
+        for (MemberSearchShape shape : MemberSearchShape.all()) {
+            MemberSearchCondition condition = sampleCondition(shape);
+            paths.put("searchHedged:" + shape, () -> repository.searchHedged(condition));
+            //첫 페이지가 아니어야 content 만으로 끝나지 않고 전체 개수 경로까지 탄다
+            for (TotalMode mode : TotalMode.values()) {
+                paths.put("searchPage:" + mode + ":" + shape,
+                        () -> memberRepository.searchPage(condition, PageRequest.of(1, 20), mode));
+            }
+            paths.put("searchSlice:" + shape, () -> memberRepository.searchSlice(condition, PageRequest.of(1, 20)));
+            for (MemberCursor.Sort sort : MemberCursor.Sort.values()) {
+                paths.put("searchByCursor:" + sort + ":" + shape,
+                        () -> memberRepository.searchByCursor(condition, MemberCursor.first(sort), 20));
+            }
+            paths.put("searchPageWindowed:" + shape,
+                    () -> memberRepository.searchPageWindowed(condition, PageRequest.of(1, 20)));
+            paths.put("searchColumnar:" + shape, () -> memberRepository.searchColumnar(condition));
+        }
+
+        for (Map.Entry<String, Runnable> path : paths.entrySet()) {
+            long cold = 0;
+            long warm = 0;
+            for (int i = 0; i < iterations; i++) {
+                //캐시에서 바로 꺼내지 않고 실제 쿼리 경로를 타도록 매번 비운다
+                resultCache.invalidateAll();
+                countCache.invalidateAll();
+                long begin = System.nanoTime();
+                readOnlyTx.executeWithoutResult(status -> path.getValue().run());
+                long elapsed = System.nanoTime() - begin;
+                if (i == 0) {
+                    cold = elapsed;
+                }
+                warm = elapsed;
+            }
+            record(path.getKey(), "cold", cold);
+            record(path.getKey(), "warm", warm);
+            log.debug("warm-up {} cold={}us warm={}us", path.getKey(), cold / 1_000, warm / 1_000);
+        }
+
+        resultCache.invalidateAll();
+        countCache.invalidateAll();
+        log.info("search warm-up finished: {} paths x {} iterations in {}ms",
+                paths.size(), iterations, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void record(String path, String phase, long nanos) {
+        Timer.builder("member.warmup.latency")
+                .tag("path", path)
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private MemberSearchCondition sampleCondition(MemberSearchShape shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if (shape.hasUsername()) {
+            condition.setUsername("member1");
+        }
+        if (shape.hasTeamName()) {
+            condition.setTeamName("teamA");
+        }
+        if (shape.hasAgeGoe()) {
+            condition.setAgeGoe(10);
+        }
+        if (shape.hasAgeLoe()) {
+            condition.setAgeLoe(40);
+        }
+        return condition;
+    }
+}
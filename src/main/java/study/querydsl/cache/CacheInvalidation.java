@@ -0,0 +1,55 @@
+package study.querydsl.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션 밖의 쓰기는 즉시, 트랜잭션 안의 쓰기는 커밋 후 캐시당 한 번만 무효화한다.
+ * 커밋 전까지 다른 트랜잭션이 보는 데이터는 그대로이고, 쓰기가 있는 트랜잭션은 캐시를 거치지 않으므로 (TransactionWrites)
+ * 쓰기마다 캐시를 비울 필요가 없다. 롤백되면 무효화하지 않는다.
+ */
+final class CacheInvalidation {
+
+    private CacheInvalidation() {
+    }
+
+    static void invalidate(Object cache, Runnable invalidateAll) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll.run();
+            return;
+        }
+        //트랜잭션당 한 번만 등록
+        if (TransactionSynchronizationManager.hasResource(cache)) {
+            return;
+        }
+        Invalidation invalidation = new Invalidation(cache, invalidateAll);
+        TransactionSynchronizationManager.bindResource(cache, invalidation);
+        TransactionSynchronizationManager.registerSynchronization(invalidation);
+    }
+
+    /**
+     * REQUIRES_NEW 로 트랜잭션이 중단되면 등록 표시도 내려놓아 안쪽 트랜잭션이 따로 등록할 수 있게 한다.
+     */
+    private record Invalidation(Object cache, Runnable invalidateAll) implements TransactionSynchronization {
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(cache);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(cache, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            invalidateAll.run();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(cache);
+        }
+    }
+}
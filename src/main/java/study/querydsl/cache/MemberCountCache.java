@@ -0,0 +1,79 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.entity.EntityWriteEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TransactionWrites;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 검색의 전체 카운트 캐시
+ * 페이지를 넘길 때마다 같은 조건으로 count 쿼리를 다시 날리지 않도록 조건별로 캐싱한다.
+ * member, team 에 쓰기가 발생하면 전부 무효화한다.
+ * member, team 에 쓰기가 있는 트랜잭션 안에서는 커밋 전 카운트가 공유 캐시에 들어가지 않도록 캐시를 거치지 않는다.
+ * 히트율, 제거 횟수는 cache.gets, cache.evictions 등의 메트릭(cache=memberCount)으로 노출된다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final Cache<MemberSearchKey, Long> cache;
+    private final boolean enabled;
+
+    public MemberCountCache(@Value("${member.search.count-cache.enabled:true}") boolean enabled,
+                            @Value("${member.search.count-cache.max-size:1000}") long maxSize,
+                            @Value("${member.search.count-cache.ttl:30s}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberCount");
+    }
+
+    public long get(MemberSearchKey key, LongSupplier counter) {
+        if (!enabled) {
+            return counter.getAsLong();
+        }
+        if (TransactionWrites.pending(Member.class, Team.class)) {
+            return counter.getAsLong();
+        }
+        //조회 도중 자동 flush 로 쓰기가 생겼다면 결과는 돌려주되 캐시에는 넣지 않는다
+        long[] uncached = new long[1];
+        Long count = cache.get(key, k -> {
+            long loaded = counter.getAsLong();
+            if (TransactionWrites.pending(Member.class, Team.class)) {
+                uncached[0] = loaded;
+                return null;
+            }
+            return loaded;
+        });
+        return count != null ? count : uncached[0];
+    }
+
+    public Long getIfPresent(MemberSearchKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onWrite(EntityWriteEvent event) {
+        if (event.affects(Member.class) || event.affects(Team.class)) {
+            CacheInvalidation.invalidate(this, this::invalidateAll);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.EntityWriteEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TransactionWrites;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 검색 결과 캐시
+ * 대시보드처럼 같은 조건으로 반복 호출되는 검색 결과를 메서드별 Caffeine(W-TinyLFU) 캐시에 담는다.
+ * member, team 에 쓰기가 발생하면 전부 무효화한다.
+ * member, team 에 쓰기가 있는 트랜잭션 안에서는 커밋 전 데이터가 공유 캐시에 들어가지 않도록 캐시를 거치지 않는다.
+ * 메서드별 hit/miss/load 시간은 cache=memberSearch, method=... 태그의 메트릭으로 노출된다.
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private final Map<String, Cache<MemberSearchKey, List<MemberTeamDto>>> caches = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long maxSize;
+    private final Duration ttl;
+    private final MeterRegistry meterRegistry;
+
+    public MemberSearchResultCache(@Value("${member.search.result-cache.enabled:true}") boolean enabled,
+                                   @Value("${member.search.result-cache.max-size:500}") long maxSize,
+                                   @Value("${member.search.result-cache.ttl:60s}") Duration ttl,
+                                   MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<MemberTeamDto> get(String method, MemberSearchKey key, Supplier<List<MemberTeamDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        if (TransactionWrites.pending(Member.class, Team.class)) {
+            return loader.get();
+        }
+        //조회 도중 자동 flush 로 쓰기가 생겼다면 결과는 돌려주되 캐시에는 넣지 않는다
+        List<List<MemberTeamDto>> uncached = new ArrayList<>(1);
+        List<MemberTeamDto> result = caches.computeIfAbsent(method, this::newCache)
+                .get(key, k -> {
+                    List<MemberTeamDto> loaded = List.copyOf(loader.get());
+                    if (TransactionWrites.pending(Member.class, Team.class)) {
+                        uncached.add(loaded);
+                        return null;
+                    }
+                    return loaded;
+                });
+        return result != null ? result : uncached.get(0);
+    }
+
+    public void invalidateAll() {
+        caches.values().forEach(Cache::invalidateAll);
+    }
+
+    @EventListener
+    public void onWrite(EntityWriteEvent event) {
+        if (event.affects(Member.class) || event.affects(Team.class)) {
+            CacheInvalidation.invalidate(this, this::invalidateAll);
+        }
+    }
+
+    private Cache<MemberSearchKey, List<MemberTeamDto>> newCache(String method) {
+        Cache<MemberSearchKey, List<MemberTeamDto>> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberSearch", "method", method);
+        return cache;
+    }
+}
@@ -0,0 +1,223 @@
+package study.querydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.ReplicaRoutingDataSource;
+import study.querydsl.dto.TeamStats;
+import study.querydsl.entity.EntityWriteEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 수, 나이 합계/최소/최대/평균
+ * 리포트마다 member 전체를 groupBy 로 다시 읽는 대신, 커밋된 변경(TeamStatsEventListener)을 팀별 집계에 바로 반영해서
+ * 조회는 팀 수에 비례하는 시간(O(teams))만 든다. 최소/최대는 나이별 인원(TreeMap)으로 관리해 삭제에도 유지된다.
+ *
+ * 증분으로 따라갈 수 없는 쓰기(Querydsl bulk update/delete)가 있으면 stale 로 표시하고 다음 조회 때 DB 에서 다시 집계한다.
+ * 놓친 변경이 누적되지 않도록 reconcile-interval 마다 주기적으로도 다시 집계한다.
+ * 재집계 도중 커밋된 변경은 모아 두었다가 새 집계에 다시 반영한 뒤 교체한다. (증분 반영과 같은 lock 안에서)
+ * 집계 쿼리 직전에 커밋됐지만 아직 반영되지 않은 변경은 두 번 반영될 수 있는데, 다음 주기의 재집계에서 맞춰진다.
+ */
+@Component
+public class TeamStatsCache {
+
+    private final JPAQueryFactory query;
+    private final TransactionTemplate readOnlyTx;
+
+    //buckets, pending 은 lock 으로 보호한다
+    private final Object lock = new Object();
+    //재집계는 한 번에 하나만, 집계 쿼리를 실행하는 동안 증분 반영을 막지 않도록 lock 과 나눈다
+    private final Object reconcileLock = new Object();
+    private Map<Long, TeamBucket> buckets = new HashMap<>();
+    //재집계 중에 반영된 변경, 재집계 중이 아니면 null
+    private List<Predicate<Map<Long, TeamBucket>>> pending;
+    private volatile boolean stale = true;
+
+    public TeamStatsCache(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.query = new JPAQueryFactory(em);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public List<TeamStats> stats() {
+        if (stale) {
+            reconcile();
+        }
+        synchronized (lock) {
+            return buckets.entrySet().stream()
+                    .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                    .sorted(Comparator.comparing(TeamStats::getTeamId))
+                    .toList();
+        }
+    }
+
+    void memberAdded(Long teamId, int age) {
+        apply(map -> {
+            map.computeIfAbsent(teamId, id -> new TeamBucket(null)).add(age, 1);
+            return true;
+        });
+    }
+
+    void memberRemoved(Long teamId, int age) {
+        apply(map -> {
+            TeamBucket bucket = map.get(teamId);
+            return bucket != null && bucket.remove(age);
+        });
+    }
+
+    void teamSaved(Long teamId, String name) {
+        apply(map -> {
+            map.computeIfAbsent(teamId, id -> new TeamBucket(name)).name = name;
+            return true;
+        });
+    }
+
+    void teamRemoved(Long teamId) {
+        apply(map -> {
+            map.remove(teamId);
+            return true;
+        });
+    }
+
+    void markStale() {
+        stale = true;
+    }
+
+    /**
+     * 지금 집계에 반영하고, 재집계 중이면 새 집계에도 반영하도록 모아 둔다
+     * change 가 false 를 돌려주면(모르는 회원이 빠졌다면) 집계가 이미 어긋난 것
+     */
+    private void apply(Predicate<Map<Long, TeamBucket>> change) {
+        synchronized (lock) {
+            if (!change.test(buckets)) {
+                stale = true;
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    @EventListener
+    public void onWrite(EntityWriteEvent event) {
+        //단건 쓰기는 커밋 후 이벤트로 반영되고, bulk 쓰기만 다시 집계한다
+        if (event.bulk() && (event.affects(Member.class) || event.affects(Team.class))) {
+            CacheInvalidation.invalidate(this, this::markStale);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.team-stats.reconcile-interval:PT5M}",
+            initialDelayString = "${member.team-stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            synchronized (lock) {
+                //집계 도중 bulk 쓰기가 오면 다시 stale 이 된다
+                stale = false;
+                pending = new ArrayList<>();
+            }
+
+            Map<Long, TeamBucket> rebuilt;
+            //레플리카 지연만큼 오래된 값으로 맞추지 않도록 primary 에서 집계한다
+            ReplicaRoutingDataSource.force(ReplicaRoutingDataSource.Route.PRIMARY);
+            try {
+                rebuilt = readOnlyTx.execute(status -> load());
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    pending = null;
+                    stale = true;
+                }
+                throw e;
+            } finally {
+                ReplicaRoutingDataSource.clearForced();
+            }
+
+            synchronized (lock) {
+                //이미 집계에 들어간 삭제를 다시 반영하면 실패하는데, 그 경우는 새 집계가 맞으므로 무시한다
+                for (Predicate<Map<Long, TeamBucket>> change : pending) {
+                    change.test(rebuilt);
+                }
+                pending = null;
+                buckets = rebuilt;
+            }
+        }
+    }
+
+    Map<Long, TeamBucket> load() {
+        Map<Long, TeamBucket> rebuilt = new HashMap<>();
+        for (Tuple row : query.select(team.id, team.name).from(team).fetch()) {
+            rebuilt.put(row.get(team.id), new TeamBucket(row.get(team.name)));
+        }
+
+        List<Tuple> ages = query
+                .select(member.team.id, member.age, member.count())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id, member.age)
+                .fetch();
+        for (Tuple row : ages) {
+            rebuilt.computeIfAbsent(row.get(member.team.id), id -> new TeamBucket(null))
+                    .add(row.get(member.age), row.get(member.count()));
+        }
+        return rebuilt;
+    }
+
+    /**
+     * lock 안에서만 읽고 쓴다
+     */
+    static class TeamBucket {
+
+        private String name;
+        private long count;
+        private long ageSum;
+        //나이 -> 인원
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+        private TeamBucket(String name) {
+            this.name = name;
+        }
+
+        private void add(int age, long members) {
+            count += members;
+            ageSum += (long) age * members;
+            ages.merge(age, members, Long::sum);
+        }
+
+        private boolean remove(int age) {
+            Long members = ages.get(age);
+            if (members == null) {
+                return false;
+            }
+            if (members == 1) {
+                ages.remove(age);
+            } else {
+                ages.put(age, members - 1);
+            }
+            count--;
+            ageSum -= age;
+            return true;
+        }
+
+        private TeamStats snapshot(Long teamId) {
+            return new TeamStats(teamId, name, count, ageSum,
+                    ages.isEmpty() ? null : ages.firstKey(),
+                    ages.isEmpty() ? null : ages.lastKey());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package study.querydsl.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.Objects;
+
+/**
+ * 커밋된 Member, Team 변경을 TeamStatsCache 에 반영
+ * JPA 엔티티 리스너(@PostPersist 등)는 커밋 전에 호출되어 롤백을 알 수 없고 변경 전 값도 없으므로,
+ * 하이버네이트 POST_COMMIT 이벤트에서 변경 전 상태(oldState)와 함께 받는다. changeTeam 도 team 컬럼 변경으로 들어온다.
+ */
+@Component
+public class TeamStatsEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final TeamStatsCache stats;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public TeamStatsEventListener(TeamStatsCache stats, EntityManagerFactory entityManagerFactory) {
+        this.stats = stats;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object[] state = event.getState();
+        EntityPersister persister = event.getPersister();
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(state[persister.getPropertyIndex("team")]);
+            if (teamId != null) {
+                stats.memberAdded(teamId, (Integer) state[persister.getPropertyIndex("age")]);
+            }
+        } else if (event.getEntity() instanceof Team) {
+            stats.teamSaved((Long) event.getId(), (String) state[persister.getPropertyIndex("name")]);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            //변경 전 값을 모르면 증분으로 맞출 수 없다
+            stats.markStale();
+            return;
+        }
+        Object[] state = event.getState();
+        EntityPersister persister = event.getPersister();
+        if (event.getEntity() instanceof Member) {
+            int teamIndex = persister.getPropertyIndex("team");
+            int ageIndex = persister.getPropertyIndex("age");
+            Long oldTeamId = teamId(oldState[teamIndex]);
+            Long newTeamId = teamId(state[teamIndex]);
+            int oldAge = (Integer) oldState[ageIndex];
+            int newAge = (Integer) state[ageIndex];
+            if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+                return;
+            }
+            if (oldTeamId != null) {
+                stats.memberRemoved(oldTeamId, oldAge);
+            }
+            if (newTeamId != null) {
+                stats.memberAdded(newTeamId, newAge);
+            }
+        } else if (event.getEntity() instanceof Team) {
+            stats.teamSaved((Long) event.getId(), (String) state[persister.getPropertyIndex("name")]);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object[] state = event.getDeletedState();
+        EntityPersister persister = event.getPersister();
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(state[persister.getPropertyIndex("team")]);
+            if (teamId != null) {
+                stats.memberRemoved(teamId, (Integer) state[persister.getPropertyIndex("age")]);
+            }
+        } else if (event.getEntity() instanceof Team) {
+            stats.teamRemoved((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private static Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        LazyInitializer lazyInitializer = HibernateProxy.extractLazyInitializer(team);
+        if (lazyInitializer != null) {
+            return (Long) lazyInitializer.getInternalIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+}
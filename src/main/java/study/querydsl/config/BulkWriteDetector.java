@@ -0,0 +1,71 @@
+package study.querydsl.config;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.EntityWriteEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TransactionWrites;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Querydsl bulk update/delete 는 엔티티 리스너를 거치지 않으므로
+ * 실행되는 SQL을 보고 member, team 테이블에 대한 쓰기를 EntityWriteEvent 로 알린다.
+ * flush 중에 나가는 update/delete(변경 감지, em.remove)는 엔티티 리스너가 이미 알리므로 제외한다. (FlushTracker)
+ * 엔티티 리스너와 같이 트랜잭션 안에서는 테이블별로 처음 한 번만 알린다. (TransactionWrites)
+ */
+@Component
+public class BulkWriteDetector implements SqlStatementListener {
+
+    //use_sql_comments 사용 시 앞에 붙는 /* ... */ 주석은 건너뛴다
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(?:update|delete\\s+from)\\s+(\\w+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Map<String, Class<?>> TABLES = Map.of(
+            "member", Member.class,
+            "team", Team.class
+    );
+
+    private final ApplicationEventPublisher publisher;
+
+    public BulkWriteDetector(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void onStatement(String sql) {
+        char first = firstChar(sql);
+        //select/insert 는 정규식까지 가지 않도록 빠르게 거른다
+        if (first != 'u' && first != 'd' && first != '/') {
+            return;
+        }
+        if (FlushTracker.isFlushing()) {
+            return;
+        }
+        Matcher matcher = WRITE.matcher(sql);
+        if (matcher.find()) {
+            Class<?> entityType = TABLES.get(matcher.group(1).toLowerCase(Locale.ROOT));
+            if (entityType != null) {
+                EntityWriteEvent event = new EntityWriteEvent(entityType, true);
+                if (TransactionWrites.record(event)) {
+                    publisher.publishEvent(event);
+                }
+            }
+        }
+    }
+
+    private char firstChar(String sql) {
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return Character.toLowerCase(c);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+/**
+ * 하이버네이트 StatementInspector는 하나만 등록할 수 있으므로
+ * 스프링 빈으로 등록된 SqlStatementListener 들에게 SQL을 나눠준다.
+ */
+public class DelegatingStatementInspector implements StatementInspector {
+
+    private final ObjectProvider<SqlStatementListener> provider;
+    //EntityManagerFactory 생성 시점에는 리스너 빈이 아직 없을 수 있으므로 처음 사용할 때 조회한다
+    private volatile List<SqlStatementListener> listeners;
+
+    public DelegatingStatementInspector(ObjectProvider<SqlStatementListener> provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<SqlStatementListener> current = listeners;
+        if (current == null) {
+            current = provider.orderedStream().toList();
+            listeners = current;
+        }
+        for (SqlStatementListener listener : current) {
+            listener.onStatement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * 현재 스레드에서 하이버네이트가 flush(엔티티 변경 반영) 중인지 추적한다.
+ * flush 중에 실행되는 update/delete 는 영속성 컨텍스트를 거친 쓰기이므로 BulkWriteDetector 가 bulk 로 보지 않는다.
+ * hibernate.session.events.auto 로 세션마다 생성된다.
+ */
+public class FlushTracker implements SessionEventListener {
+
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    public static boolean isFlushing() {
+        return DEPTH.get()[0] > 0;
+    }
+
+    @Override
+    public void flushStart() {
+        DEPTH.get()[0]++;
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        exit();
+    }
+
+    @Override
+    public void partialFlushStart() {
+        DEPTH.get()[0]++;
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        exit();
+    }
+
+    @Override
+    public void end() {
+        //flush 도중 예외로 End 가 빠졌더라도 세션이 닫히면 초기화
+        DEPTH.remove();
+    }
+
+    private void exit() {
+        int[] depth = DEPTH.get();
+        if (depth[0] > 0) {
+            depth[0]--;
+        }
+    }
+}
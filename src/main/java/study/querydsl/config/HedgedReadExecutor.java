@@ -0,0 +1,239 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.ReplicaRoutingDataSource.Route;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 읽기 전용 검색의 hedged read
+ * primary 가 최근 지연 시간의 백분위수(기본 p95) 안에 응답하지 않으면 같은 조회를 레플리카에도 보내고
+ * 먼저 끝난 쪽의 결과를 돌려준 뒤 늦은 쪽은 취소한다.
+ * 레플리카 라우팅(member.datasource.replica.enabled)이 켜져 있을 때만 동작한다.
+ * 지연 허용치(ReplicaLagGuard) 안이라 레플리카가 최신이 아닐 수 있으면 레플리카로 보내지 않는다.
+ * 결과 캐시처럼 같은 키의 호출을 한 번의 로드로 묶는 장치는 hedge 바깥에 두어야 한다.
+ * (안쪽에 있으면 레플리카 시도가 primary 의 로드를 기다리게 되어 먼저 끝날 수 없다)
+ * 조회는 전용 스레드 풀(hedgeExecutor)에서 실행하고, 대기 시간은 primary 가 실제로 시작된 시점부터 잰다.
+ * 풀이 가득 차서 거절되면 hedge 하지 않는다. (primary 는 호출 스레드에서 그대로 읽는다)
+ * 메트릭: member.search.hedge.requests, member.search.hedge.issued, member.search.hedge.wins{winner},
+ * member.search.hedge.rejected, member.search.hedge.skipped(지연 허용치 안이라 hedge 하지 않음)
+ */
+@Component
+public class HedgedReadExecutor {
+
+    private static final int WINDOW = 256;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final AsyncTaskExecutor executor;
+    private final ReplicaLagGuard lagGuard;
+    private final TransactionTemplate readOnlyTx;
+
+    //최근 primary 응답 시간 (링 버퍼)
+    private final long[] latencies = new long[WINDOW];
+    private final AtomicInteger recorded = new AtomicInteger();
+    private volatile long delayNanos;
+
+    private final Counter requests;
+    private final Counter issued;
+    private final Counter primaryWins;
+    private final Counter replicaWins;
+    private final Counter rejected;
+    private final Counter skipped;
+
+    public HedgedReadExecutor(@Value("${member.search.hedge.enabled:false}") boolean hedgeEnabled,
+                              @Value("${member.datasource.replica.enabled:false}") boolean replicaEnabled,
+                              @Value("${member.search.hedge.percentile:0.95}") double percentile,
+                              @Value("${member.search.hedge.min-delay:10ms}") Duration minDelay,
+                              @Qualifier("hedgeExecutor") AsyncTaskExecutor executor,
+                              ReplicaLagGuard lagGuard,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.enabled = hedgeEnabled && replicaEnabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.delayNanos = minDelayNanos;
+        this.executor = executor;
+        this.lagGuard = lagGuard;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+
+        this.requests = meterRegistry.counter("member.search.hedge.requests");
+        this.issued = meterRegistry.counter("member.search.hedge.issued");
+        this.primaryWins = meterRegistry.counter("member.search.hedge.wins", "winner", "primary");
+        this.replicaWins = meterRegistry.counter("member.search.hedge.wins", "winner", "replica");
+        this.rejected = meterRegistry.counter("member.search.hedge.rejected");
+        this.skipped = meterRegistry.counter("member.search.hedge.skipped");
+    }
+
+    /**
+     * read 는 읽기 전용 트랜잭션 안에서 실행된다. (hedge 하지 않을 때는 호출 스레드의 트랜잭션에 참여)
+     */
+    public <T> T execute(Supplier<T> read) {
+        if (!enabled) {
+            return readOnlyTx.execute(status -> read.get());
+        }
+        requests.increment();
+        if (lagGuard.replicaMayBeStale()) {
+            //라우팅이 어차피 primary 로 보내므로 hedge 할 대상이 없다
+            skipped.increment();
+            return readOnlyTx.execute(status -> read.get());
+        }
+        CompletableFuture<T> primaryResult = new CompletableFuture<>();
+        CompletableFuture<Long> primaryStarted = new CompletableFuture<>();
+        Future<?> primary;
+        try {
+            primary = submit(Route.PRIMARY, read, primaryResult, primaryStarted);
+        } catch (RejectedExecutionException e) {
+            //hedge 할 여유가 없으면 작업을 더 늘리지 않고 평소처럼 읽는다
+            rejected.increment();
+            return readOnlyTx.execute(status -> read.get());
+        }
+
+        try {
+            //큐가 없으므로 접수되면 곧바로 시작된다, 대기 시간은 시작 시점부터 잰다
+            long start = primaryStarted.get();
+            long remaining = delayNanos - (System.nanoTime() - start);
+            try {
+                T result = primaryResult.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                recordLatency(System.nanoTime() - start);
+                return result;
+            } catch (TimeoutException e) {
+                return hedge(read, start, primaryResult, primary);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.cancel(true);
+            throw new IllegalStateException("hedged read 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private <T> T hedge(Supplier<T> read, long start, CompletableFuture<T> primaryResult, Future<?> primary) {
+        //기다리는 동안 다른 요청의 쓰기가 커밋됐을 수 있다
+        if (lagGuard.replicaMayBeStale()) {
+            skipped.increment();
+            return awaitPrimary(start, primaryResult);
+        }
+        CompletableFuture<T> replicaResult = new CompletableFuture<>();
+        Future<?> replica;
+        try {
+            replica = submit(Route.REPLICA, read, replicaResult, new CompletableFuture<>());
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return awaitPrimary(start, primaryResult);
+        }
+        issued.increment();
+
+        CompletableFuture<T> first = firstSuccessful(primaryResult, replicaResult);
+        try {
+            T result = first.join();
+            if (primaryResult.isDone() && !primaryResult.isCompletedExceptionally()) {
+                primaryWins.increment();
+                recordLatency(System.nanoTime() - start);
+                replica.cancel(true);
+            } else {
+                replicaWins.increment();
+                //취소하더라도 primary 가 느렸다는 사실은 지연 시간 분포에 반영한다
+                recordLatency(System.nanoTime() - start);
+                primary.cancel(true);
+            }
+            return result;
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private <T> T awaitPrimary(long start, CompletableFuture<T> primaryResult) {
+        try {
+            T result = primaryResult.join();
+            recordLatency(System.nanoTime() - start);
+            return result;
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * 지정한 데이터소스에서 읽기 전용 트랜잭션으로 실행
+     * 늦은 쪽은 스레드 인터럽트로 취소한다. (진행 중인 JDBC 호출은 드라이버가 인터럽트에 반응해야 중단된다)
+     */
+    private <T> Future<?> submit(Route route, Supplier<T> read, CompletableFuture<T> result,
+                                 CompletableFuture<Long> started) {
+        return executor.submit(() -> {
+            started.complete(System.nanoTime());
+            ReplicaRoutingDataSource.force(route);
+            try {
+                result.complete(readOnlyTx.execute(status -> read.get()));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                ReplicaRoutingDataSource.clearForced();
+            }
+        });
+    }
+
+    /**
+     * 둘 중 먼저 성공한 결과, 둘 다 실패하면 마지막 실패
+     */
+    private <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> a, CompletableFuture<T> b) {
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : List.of(a, b)) {
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    first.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    first.completeExceptionally(error);
+                }
+            });
+        }
+        return first;
+    }
+
+    long currentDelayNanos() {
+        return delayNanos;
+    }
+
+    void recordLatency(long nanos) {
+        int count = recorded.getAndIncrement();
+        latencies[count % WINDOW] = nanos;
+        //매 요청마다 정렬하지 않도록 32건마다 백분위수를 다시 계산
+        if (count % 32 == 31) {
+            long[] snapshot = Arrays.copyOf(latencies, Math.min(count + 1, WINDOW));
+            Arrays.sort(snapshot);
+            long value = snapshot[(int) Math.min(snapshot.length - 1, Math.floor(snapshot.length * percentile))];
+            delayNanos = Math.max(minDelayNanos, value);
+        }
+    }
+
+    private RuntimeException unwrap(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 하이버네이트 통계(2차 캐시 적중률, 리전별 put/hit/miss 등)는 generate_statistics 설정과
+ * hibernate-micrometer 의존성만 있으면 스프링 부트의 HibernateMetricsAutoConfiguration 이 노출한다.
+ * 통계 수집은 기본으로 꺼져 있고 member.hibernate.statistics=true 일 때만 켜진다.
+ */
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(ObjectProvider<SqlStatementListener> listeners) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new DelegatingStatementInspector(listeners));
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, FlushTracker.class.getName());
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.EntityWriteEvent;
+
+import java.time.Duration;
+
+/**
+ * 레플리카 지연 허용치
+ * 쓰기가 커밋된 뒤 maxLag 동안은 레플리카에 아직 반영되지 않았을 수 있으므로 읽기도 primary 로 보낸다.
+ * 엔티티 리스너는 커밋 전에 호출되므로, 트랜잭션 안의 쓰기는 커밋 시점부터 지연 시간을 잰다.
+ * (커밋이 maxLag 보다 오래 걸리는 대량 등록 등에서도 커밋 직후 읽기가 레플리카로 가지 않도록)
+ */
+@Component
+public class ReplicaLagGuard {
+
+    private final long maxLagNanos;
+    private volatile long lastWriteNanos;
+    private volatile boolean written;
+
+    public ReplicaLagGuard(@Value("${member.datasource.replica.max-lag:1s}") Duration maxLag) {
+        this.maxLagNanos = maxLag.toNanos();
+    }
+
+    @EventListener
+    public void onWrite(EntityWriteEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markWritten();
+            return;
+        }
+        //트랜잭션당 한 번만 등록
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markWritten();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaLagGuard.this);
+            }
+        });
+    }
+
+    private void markWritten() {
+        lastWriteNanos = System.nanoTime();
+        written = true;
+    }
+
+    public boolean replicaMayBeStale() {
+        return written && System.nanoTime() - lastWriteNanos < maxLagNanos;
+    }
+}
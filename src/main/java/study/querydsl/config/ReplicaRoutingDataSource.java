@@ -0,0 +1,49 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @Transactional(readOnly = true) 트랜잭션은 레플리카로, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화되지 않으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서
+ * 첫 SQL 실행 시점에 커넥션을 고르게 해야 한다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    //hedged read 처럼 특정 데이터소스를 지정해서 읽어야 할 때 사용
+    private static final ThreadLocal<Route> FORCED = new ThreadLocal<>();
+
+    private final ReplicaLagGuard lagGuard;
+
+    public ReplicaRoutingDataSource(ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+    }
+
+    public static void force(Route route) {
+        FORCED.set(route);
+    }
+
+    public static void clearForced() {
+        FORCED.remove();
+    }
+
+    static Route forced() {
+        return FORCED.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route forced = FORCED.get();
+        if (forced != null) {
+            return forced;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !lagGuard.replicaMayBeStale()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import study.querydsl.metrics.SqlStatementTracker;
+
+/**
+ * 검색 쿼리를 병렬로 실행할 때 사용하는 스레드 풀
+ * 각 작업이 커넥션을 하나씩 잡으므로 커넥션 풀 크기보다 작게 잡는다.
+ * 작업에서 실행한 SQL, 커넥션 대기 시간은 작업을 넘긴 검색 메서드의 계측에 포함된다. (SqlStatementTracker.propagate)
+ */
+@Configuration
+public class SearchExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor searchExecutor(@Value("${member.search.executor.pool-size:4}") int poolSize,
+                                                 @Value("${member.search.executor.queue-capacity:100}") int queueCapacity,
+                                                 SqlStatementTracker statementTracker) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-");
+        executor.setTaskDecorator(statementTracker::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * hedged read 전용 스레드 풀 (HedgedReadExecutor)
+     * 큐를 두지 않으므로 스레드가 모두 사용 중이면 바로 거절되고, 호출 스레드에서 hedge 없이 읽는다.
+     * 부하가 높을 때 대기열에 쌓인 시간 때문에 hedge 가 더 나가는 일이 없도록 하기 위해서다.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor hedgeExecutor(@Value("${member.search.hedge.pool-size:8}") int poolSize,
+                                                SqlStatementTracker statementTracker) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("hedge-");
+        executor.setTaskDecorator(statementTracker::propagate);
+        return executor;
+    }
+
+    /**
+     * Executor 빈이 하나라도 있으면 스프링 부트가 기본 applicationTaskExecutor 를 만들지 않으므로
+     * (MVC 비동기 응답, @Async 용) 기본 설정 그대로 직접 등록한다.
+     */
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.config;
+
+/**
+ * 하이버네이트가 실행하는 모든 SQL을 전달받는 리스너
+ * 매 statement 마다 호출되므로 가볍게 구현해야 한다.
+ */
+public interface SqlStatementListener {
+
+    void onStatement(String sql);
+}
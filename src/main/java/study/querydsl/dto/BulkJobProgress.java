@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class BulkJobProgress {
+
+    private String jobName;
+    private long chunks;
+    private long processed;
+    //마지막으로 처리한 member id
+    private Long lastId;
+    private boolean completed;
+
+    public BulkJobProgress(String jobName, long chunks, long processed, Long lastId, boolean completed) {
+        this.jobName = jobName;
+        this.chunks = chunks;
+        this.processed = processed;
+        this.lastId = lastId;
+        this.completed = completed;
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+/**
+ * 컬럼 단위로 담은 검색 결과 (분석/리포트용)
+ * 행마다 DTO 객체와 박싱된 Long, String 을 만드는 대신 원시 타입 배열에 담는다.
+ * 팀 이름은 사전(dictionary) 인코딩해서 같은 문자열은 한 번만 들고 있다.
+ * 회원 이름은 대부분 서로 달라서 사전이 결과만큼 커지고 조회마다 박싱, 해시 비용만 들므로 그대로 담는다.
+ * 팀이 없는 회원은 teamIds, teamNameCodes 가 -1 이다.
+ */
+@Getter
+public class MemberColumns {
+
+    public static final long NO_TEAM = -1;
+
+    private final int size;
+    private final long[] memberIds;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final String[] usernames;
+    private final int[] teamNameCodes;
+    private final String[] teamNameDictionary;
+
+    public MemberColumns(int size, long[] memberIds, int[] ages, long[] teamIds,
+                         String[] usernames,
+                         int[] teamNameCodes, String[] teamNameDictionary) {
+        this.size = size;
+        this.memberIds = memberIds;
+        this.ages = ages;
+        this.teamIds = teamIds;
+        this.usernames = usernames;
+        this.teamNameCodes = teamNameCodes;
+        this.teamNameDictionary = teamNameDictionary;
+    }
+
+    public String username(int row) {
+        return usernames[row];
+    }
+
+    public String teamName(int row) {
+        int code = teamNameCodes[row];
+        return code < 0 ? null : teamNameDictionary[code];
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징 커서
+ * 마지막으로 읽은 행의 정렬 키와 id를 담고, 클라이언트에는 불투명한 문자열로 내려준다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberCursor {
+
+    public enum Sort {
+        ID, AGE, USERNAME
+    }
+
+    private static final String DELIMITER = "|";
+    private static final String NULL_MARK = "0";
+    private static final String VALUE_MARK = "1";
+
+    private final Sort sort;
+    private final Long lastId;
+    private final Integer lastAge;
+    private final String lastUsername;
+
+    private MemberCursor(Sort sort, Long lastId, Integer lastAge, String lastUsername) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastAge = lastAge;
+        this.lastUsername = lastUsername;
+    }
+
+    public static MemberCursor first(Sort sort) {
+        return new MemberCursor(sort, null, null, null);
+    }
+
+    public static MemberCursor afterId(Long lastId) {
+        return new MemberCursor(Sort.ID, lastId, null, null);
+    }
+
+    public static MemberCursor after(Sort sort, MemberTeamDto last) {
+        return new MemberCursor(sort, last.getMemberId(), last.getAge(), last.getUsername());
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public String encode() {
+        //username은 구분자를 포함할 수 있으므로 항상 마지막에 둔다
+        //null 과 빈 문자열을 구분하도록 앞에 표시를 붙인다 (null: "0", 값: "1" + username)
+        String raw = sort.name() + DELIMITER
+                + lastId + DELIMITER
+                + (lastAge == null ? "" : lastAge) + DELIMITER
+                + (lastUsername == null ? NULL_MARK : VALUE_MARK + lastUsername);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + DELIMITER, 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("잘못된 커서입니다: " + cursor);
+            }
+            Sort sort = Sort.valueOf(parts[0]);
+            Long lastId = Long.valueOf(parts[1]);
+            Integer lastAge = parts[2].isEmpty() ? null : Integer.valueOf(parts[2]);
+            return new MemberCursor(sort, lastId, lastAge, decodeUsername(parts[3], cursor));
+        } catch (IllegalArgumentException e) {
+            //NumberFormatException, Base64 디코딩 오류 포함
+            throw new IllegalArgumentException("잘못된 커서입니다: " + cursor, e);
+        }
+    }
+
+    private static String decodeUsername(String part, String cursor) {
+        if (part.equals(NULL_MARK)) {
+            return null;
+        }
+        if (part.startsWith(VALUE_MARK)) {
+            return part.substring(VALUE_MARK.length());
+        }
+        throw new IllegalArgumentException("잘못된 커서입니다: " + cursor);
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberCursorResponse {
+
+    private List<MemberTeamDto> content;
+    private boolean hasNext;
+    //다음 페이지 요청 시 그대로 넘기면 되는 불투명 커서, 마지막 페이지면 null
+    private String nextCursor;
+
+    public MemberCursorResponse(List<MemberTeamDto> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberImportResult {
+
+    private long rows;
+    private int teamsCreated;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    public MemberImportResult(long rows, int teamsCreated, long elapsedMillis) {
+        this.rows = rows;
+        this.teamsCreated = teamsCreated;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MemberImportRow {
+
+    private String username;
+    private int age;
+    private String teamName;
+
+    public MemberImportRow(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
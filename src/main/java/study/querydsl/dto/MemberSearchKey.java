@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * 캐시 키로 쓰기 위해 정규화한 검색 조건
+ * 빈 문자열은 조건이 없는 것과 같으므로 null로 맞춘다.
+ */
+public record MemberSearchKey(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+
+    public static MemberSearchKey from(MemberSearchCondition condition) {
+        return new MemberSearchKey(
+                StringUtils.hasText(condition.getUsername()) ? condition.getUsername() : null,
+                StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe()
+        );
+    }
+}
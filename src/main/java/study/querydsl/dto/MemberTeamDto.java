@@ -1,16 +1,23 @@
 package study.querydsl.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
-@Data
+/**
+ * 검색 결과 캐시에 그대로 담기므로 불변으로 둔다
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
 public class MemberTeamDto {
 
-    private Long memberId;
-    private String username;
-    private int age;
-    private Long teamId;
-    private String teamName;
+    private final Long memberId;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+    private final String teamName;
 
 
     @QueryProjection
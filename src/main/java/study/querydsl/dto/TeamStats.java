@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamStats {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    //회원이 없으면 null
+    private Integer minAge;
+    private Integer maxAge;
+    private Double averageAge;
+
+    public TeamStats(Long teamId, String teamName, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.averageAge = memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
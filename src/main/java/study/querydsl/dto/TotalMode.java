@@ -0,0 +1,10 @@
+package study.querydsl.dto;
+
+/**
+ * 페이징 전체 개수 계산 방식
+ * EXACT: count 쿼리, CAPPED: 최대 N+1 건까지만 세고 넘으면 "N건 이상",
+ * ESTIMATED: 조건이 없으면 테이블 통계의 추정치 (조건이 있으면 CAPPED 와 같다)
+ */
+public enum TotalMode {
+    EXACT, CAPPED, ESTIMATED
+}
@@ -0,0 +1,61 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 청크 단위 bulk update/delete 의 진행 위치
+ * 청크와 같은 트랜잭션에서 갱신되므로, 중간에 죽어도 마지막으로 커밋된 청크 다음부터 다시 시작할 수 있다.
+ */
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Getter
+@Entity
+public class BulkJobCheckpoint {
+
+    public enum Status {
+        RUNNING, COMPLETED
+    }
+
+    @Id
+    private String jobName;
+
+    private String operation;
+
+    //마지막으로 처리한 member id, 다음 청크는 이보다 큰 id 부터
+    private Long lastId;
+
+    private long processed;
+
+    private long chunks;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private LocalDateTime updatedAt;
+
+    public BulkJobCheckpoint(String jobName, String operation) {
+        this.jobName = jobName;
+        this.operation = operation;
+        this.status = Status.RUNNING;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advance(Long lastId, long affected) {
+        this.lastId = lastId;
+        this.processed += affected;
+        this.chunks++;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.status = Status.COMPLETED;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.entity;
+
+/**
+ * 엔티티(또는 해당 테이블)에 쓰기가 발생했음을 알리는 이벤트
+ * bulk는 Querydsl update/delete 처럼 영속성 컨텍스트를 거치지 않은 쓰기인지 여부
+ */
+public record EntityWriteEvent(Class<?> entityType, boolean bulk) {
+
+    public boolean affects(Class<?> type) {
+        //프록시는 엔티티 클래스의 하위 클래스이므로 isAssignableFrom 으로 비교
+        return type.isAssignableFrom(entityType);
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * save(persist), 변경 감지, remove 시 EntityWriteEvent 발행
+ * 트랜잭션 안의 쓰기는 TransactionWrites 에 기록하고, 엔티티 타입별로 처음 한 번만 발행한다.
+ * 대량 등록처럼 한 트랜잭션에서 쓰기가 수없이 일어나도 리스너(캐시 무효화 등)는 트랜잭션당 한 번만 동작한다.
+ * 하이버네이트가 스프링 빈 컨테이너를 통해 생성하므로 생성자 주입을 받을 수 있다.
+ */
+public class EntityWriteListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public EntityWriteListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PrePersist
+    @PreUpdate
+    @PreRemove
+    public void onWrite(Object entity) {
+        EntityWriteEvent event = new EntityWriteEvent(entity.getClass(), false);
+        if (TransactionWrites.record(event)) {
+            publisher.publishEvent(event);
+        }
+    }
+}
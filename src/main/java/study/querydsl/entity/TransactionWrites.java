@@ -0,0 +1,79 @@
+package study.querydsl.entity;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 현재 트랜잭션에서 발생한 쓰기(EntityWriteEvent) 기록
+ * 커밋 전 데이터를 본 조회 결과가 공유 캐시에 들어가지 않도록, 캐시는 쓰기가 있는 트랜잭션 안에서 캐시를 거치지 않는다.
+ * 같은 종류의 쓰기는 트랜잭션당 한 번만 기록되므로, 발행하는 쪽은 처음 기록될 때만 이벤트를 발행한다.
+ * REQUIRES_NEW 처럼 트랜잭션이 중단(suspend)되면 기록도 함께 내려놓았다가 재개될 때 되돌린다.
+ */
+public final class TransactionWrites {
+
+    private static final Object KEY = TransactionWrites.class;
+
+    private TransactionWrites() {
+    }
+
+    /**
+     * 현재 트랜잭션에서 처음 발생한 쓰기면 기록하고 true, 이미 기록됐다면 false
+     * 트랜잭션 동기화가 없으면 항상 true
+     */
+    public static boolean record(EntityWriteEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return true;
+        }
+        Writes writes = (Writes) TransactionSynchronizationManager.getResource(KEY);
+        if (writes == null) {
+            writes = new Writes();
+            TransactionSynchronizationManager.bindResource(KEY, writes);
+            TransactionSynchronizationManager.registerSynchronization(writes);
+        }
+        return writes.events.add(event);
+    }
+
+    /**
+     * 현재 트랜잭션에서 types 중 하나라도 쓰기가 있었는지
+     */
+    public static boolean pending(Class<?>... types) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        Writes writes = (Writes) TransactionSynchronizationManager.getResource(KEY);
+        if (writes == null) {
+            return false;
+        }
+        for (EntityWriteEvent event : writes.events) {
+            for (Class<?> type : types) {
+                if (event.affects(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class Writes implements TransactionSynchronization {
+
+        private final Set<EntityWriteEvent> events = new HashSet<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(KEY);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(KEY, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(KEY);
+        }
+    }
+}
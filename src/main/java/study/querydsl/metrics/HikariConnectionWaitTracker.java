@@ -0,0 +1,79 @@
+package study.querydsl.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * HikariCP 커넥션 대기 시간을 호출 스레드의 계측 구간(SqlStatementTracker)에도 알린다.
+ * hikaricp.connections.acquire 는 풀 전체 기준이라 메서드, 조건 모양별로 나눠 볼 수 없기 때문이다.
+ * HikariCP 는 커넥션을 빌려 간 스레드에서 대기 시간을 기록하므로 스레드별로 구분할 수 있다.
+ * 스프링 부트가 등록하는 마이크로미터 트래커(hikaricp.*)는 그대로 감싸서 사용한다.
+ */
+@Component
+public class HikariConnectionWaitTracker implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final ObjectProvider<SqlStatementTracker> statementTracker;
+
+    public HikariConnectionWaitTracker(ObjectProvider<MeterRegistry> registry,
+                                       ObjectProvider<SqlStatementTracker> statementTracker) {
+        this.registry = registry;
+        this.statementTracker = statementTracker;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null
+                && dataSource.getMetricRegistry() == null) {
+            dataSource.setMetricsTrackerFactory(new Factory());
+        }
+        return bean;
+    }
+
+    /**
+     * 풀이 실제로 시작될 때(첫 커넥션 요청) 만들어지므로 그때 빈을 찾는다.
+     */
+    private class Factory implements MetricsTrackerFactory {
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            IMetricsTracker delegate = new MicrometerMetricsTrackerFactory(registry.getObject()).create(poolName, poolStats);
+            SqlStatementTracker tracker = statementTracker.getObject();
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                    delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+                }
+
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                    tracker.onConnectionAcquired(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+                    tracker.onConnectionReleased();
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    delegate.recordConnectionTimeout();
+                }
+
+                @Override
+                public void close() {
+                    delegate.close();
+                }
+            };
+        }
+    }
+}
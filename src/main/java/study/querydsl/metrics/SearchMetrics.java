@@ -0,0 +1,117 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberSearchShape;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 리포지토리 검색 메서드 계측
+ * member.repository.calls: 메서드, 조건 모양, 결과(outcome=success|error)별 응답 시간 (prometheus 히스토그램)
+ * member.repository.rows: 반환한 행 수, member.repository.statements: 실행한 SQL 개수
+ * member.repository.connection.wait: 커넥션 풀 대기 시간 (HikariConnectionWaitTracker)
+ * SQL 개수, 커넥션 대기 시간에는 searchExecutor, hedgeExecutor 로 넘긴 작업(병렬 count, hedged read)도 포함된다.
+ * 예외로 끝난 호출도 응답 시간, SQL 개수, 느린 쿼리 로그에 남긴다.
+ * 태그 조합이 (메서드 수 x 16 x outcome 2) 으로 제한되므로 운영에서 켜 두어도 카디널리티가 커지지 않는다.
+ * 느리거나 샘플링된 호출은 SlowQueryLog 에 함께 남긴다.
+ */
+@Component
+public class SearchMetrics {
+
+    private final MeterRegistry registry;
+    private final SqlStatementTracker statementTracker;
+    private final SlowQueryLog slowQueryLog;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public SearchMetrics(MeterRegistry registry, SqlStatementTracker statementTracker, SlowQueryLog slowQueryLog) {
+        this.registry = registry;
+        this.statementTracker = statementTracker;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * @param params 느린 쿼리 로그에 남길 바인딩 값 (toString 은 로그를 남길 때만 호출된다)
+     * @param jpql   미리 만들어 둔 JPQL 이 있으면 그 문자열, 없으면 null
+     */
+    public <T> T record(String method, MemberSearchShape shape, Object params, String jpql,
+                        Supplier<T> call, ToIntFunction<? super T> rows) {
+        Meters m = meters.computeIfAbsent(method + ':' + shape.getName(), k -> new Meters(method, shape.getName()));
+        try (SqlStatementTracker.Scope scope = statementTracker.open()) {
+            long start = System.nanoTime();
+            T result = null;
+            boolean success = false;
+            try {
+                result = call.get();
+                success = true;
+                return result;
+            } finally {
+                long duration = System.nanoTime() - start;
+                int rowCount = success ? rows.applyAsInt(result) : 0;
+                (success ? m.success : m.error()).record(duration, TimeUnit.NANOSECONDS);
+                if (success) {
+                    m.rows.record(rowCount);
+                }
+                m.statements.record(scope.statementCount());
+                m.connectionWait.record(scope.connectionWaitNanos(), TimeUnit.NANOSECONDS);
+                if (slowQueryLog.shouldLog(duration)) {
+                    slowQueryLog.log(method, shape, success ? "success" : "error", params, jpql,
+                            scope.statements(), rowCount, duration);
+                }
+            }
+        }
+    }
+
+    private class Meters {
+        private final String method;
+        private final String shape;
+        private final Timer success;
+        //실패는 드물기 때문에 히스토그램 시계열을 처음 실패할 때 만든다 (같은 태그로 다시 등록해도 같은 Timer)
+        private volatile Timer error;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+        private final Timer connectionWait;
+
+        private Meters(String method, String shape) {
+            this.method = method;
+            this.shape = shape;
+            this.success = callTimer("success");
+            this.rows = DistributionSummary.builder("member.repository.rows")
+                    .tag("method", method)
+                    .tag("shape", shape)
+                    .register(registry);
+            this.statements = DistributionSummary.builder("member.repository.statements")
+                    .tag("method", method)
+                    .tag("shape", shape)
+                    .register(registry);
+            this.connectionWait = Timer.builder("member.repository.connection.wait")
+                    .tag("method", method)
+                    .tag("shape", shape)
+                    .register(registry);
+        }
+
+        private Timer error() {
+            Timer timer = error;
+            if (timer == null) {
+                timer = callTimer("error");
+                error = timer;
+            }
+            return timer;
+        }
+
+        private Timer callTimer(String outcome) {
+            return Timer.builder("member.repository.calls")
+                    .tag("method", method)
+                    .tag("shape", shape)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.repository.MemberSearchShape;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 느린 검색 로그
+ * threshold 이상 걸린 호출은 모두, 나머지는 sample-rate 비율만큼만 study.querydsl.slowquery 로거에 남긴다.
+ * 로거는 logback-spring.xml 에서 AsyncAppender 로 연결되어 있어 요청 스레드가 파일 쓰기를 기다리지 않는다.
+ * 바인딩 값은 SQL 파라미터 대신 정규화된 검색 조건(MemberSearchKey)으로 남긴다.
+ * 회원 이름은 개인정보이므로 그대로 남기지 않고 해시(프로세스별 salt 를 붙인 SHA-256 앞 8자리)로 바꾼다.
+ * 같은 프로세스의 로그 안에서는 같은 이름끼리 묶어 볼 수 있지만, 로그만으로 원래 이름을 찾을 수는 없다.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger("study.querydsl.slowquery");
+
+    private final byte[] salt = new byte[16];
+    private final long thresholdNanos;
+    private final double sampleRate;
+
+    public SlowQueryLog(@Value("${member.slow-query.threshold-ms:200}") long thresholdMs,
+                        @Value("${member.slow-query.sample-rate:0.0}") double sampleRate) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.sampleRate = sampleRate;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    public boolean shouldLog(long durationNanos) {
+        if (!log.isInfoEnabled()) {
+            return false;
+        }
+        return durationNanos >= thresholdNanos
+                || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    public void log(String method, MemberSearchShape shape, String outcome, Object params, String jpql,
+                    List<String> statements, int rows, long durationNanos) {
+        log.info("{} method={} shape={} outcome={} durationMs={} rows={} statements={} params={} jpql=[{}] sql={}",
+                durationNanos >= thresholdNanos ? "SLOW" : "SAMPLE",
+                method, shape.getName(), outcome,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                rows, statements.size(),
+                params == null ? "-" : mask(params),
+                jpql == null ? "-" : jpql,
+                statements.stream().map(SlowQueryLog::oneLine).toList());
+    }
+
+    Object mask(Object params) {
+        if (params instanceof MemberSearchKey key) {
+            return "MemberSearchKey[username=" + hash(key.username())
+                    + ", teamName=" + key.teamName()
+                    + ", ageGoe=" + key.ageGoe()
+                    + ", ageLoe=" + key.ageLoe() + "]";
+        }
+        if (params instanceof List<?> list) {
+            return list.stream().map(this::mask).toList();
+        }
+        return params;
+    }
+
+    private String hash(String username) {
+        if (username == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            byte[] hashed = digest.digest(username.getBytes(StandardCharsets.UTF_8));
+            return "#" + HexFormat.of().formatHex(hashed, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String oneLine(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
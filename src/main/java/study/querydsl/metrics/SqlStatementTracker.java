@@ -0,0 +1,200 @@
+package study.querydsl.metrics;
+
+import org.springframework.stereotype.Component;
+import study.querydsl.config.SqlStatementListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 스레드별로 실행된 SQL과 커넥션 대기 시간을 센다.
+ * 계측 구간(open ~ close) 안에서는 SQL 문자열도 모아 두어 느린 쿼리 로그에 남긴다.
+ * 문자열 참조만 담아 두므로 포매팅 비용은 실제로 로그를 남길 때만 든다.
+ *
+ * 계측 구간에서 searchExecutor, hedgeExecutor 로 넘긴 작업(병렬 count, hedged read)의 SQL도
+ * 작업을 넘긴 스레드의 구간에 함께 센다. (propagate, 각 스레드 풀의 TaskDecorator)
+ * 구간이 끝난 뒤에도 실행 중인 작업(hedge 에서 진 쪽 등)의 SQL은 다음 구간에 섞이지 않도록 버린다.
+ */
+@Component
+public class SqlStatementTracker implements SqlStatementListener {
+
+    private static final int MAX_CAPTURED = 20;
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+    private static final ThreadLocal<Link> PARENT = new ThreadLocal<>();
+
+    @Override
+    public void onStatement(String sql) {
+        STATE.get().statement(sql);
+        Link parent = PARENT.get();
+        if (parent != null) {
+            parent.statement(sql);
+        }
+    }
+
+    /**
+     * 커넥션 풀에서 커넥션을 얻는 데 걸린 시간 (HikariConnectionWaitTracker)
+     * 트랜잭션은 계측 구간보다 먼저 시작되므로, 구간 밖에서 얻은 커넥션은 다음에 여는 구간의 대기 시간으로 본다.
+     */
+    public void onConnectionAcquired(long nanos) {
+        STATE.get().connectionAcquired(nanos);
+        Link parent = PARENT.get();
+        if (parent != null) {
+            parent.connectionAcquired(nanos);
+        }
+    }
+
+    /**
+     * 커넥션을 풀에 돌려줄 때 호출, 구간 밖에서 얻었다가 돌려준 커넥션의 대기 시간은 다음 구간에 넘기지 않는다.
+     */
+    public void onConnectionReleased() {
+        STATE.get().connectionReleased();
+    }
+
+    public Scope open() {
+        return STATE.get().open();
+    }
+
+    /**
+     * 현재 스레드의 계측 구간을 다른 스레드에서 실행할 작업에도 이어 준다.
+     * 계측 구간 밖이면 작업을 그대로 돌려준다.
+     */
+    public Runnable propagate(Runnable task) {
+        Link link = STATE.get().link();
+        if (link == null) {
+            link = PARENT.get();
+        }
+        if (link == null) {
+            return task;
+        }
+        Link captured = link;
+        return () -> {
+            Link previous = PARENT.get();
+            PARENT.set(captured);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    PARENT.remove();
+                } else {
+                    PARENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * 다른 스레드의 작업이 함께 기록하므로 상태 변경은 모두 동기화한다. (대부분 경합 없는 락)
+     */
+    private static class State {
+        private long count;
+        private long connectionWaitNanos;
+        private long pendingConnectionWaitNanos;
+        private int depth;
+        //구간이 모두 닫힐 때마다 증가, 끝난 구간에 이어진 작업을 구분한다
+        private long epoch;
+        private final List<String> statements = new ArrayList<>();
+
+        private synchronized void statement(String sql) {
+            count++;
+            if (depth > 0 && statements.size() < MAX_CAPTURED) {
+                statements.add(sql);
+            }
+        }
+
+        private synchronized void connectionAcquired(long nanos) {
+            if (depth > 0) {
+                connectionWaitNanos += nanos;
+            } else {
+                pendingConnectionWaitNanos = nanos;
+            }
+        }
+
+        private synchronized void connectionReleased() {
+            if (depth == 0) {
+                pendingConnectionWaitNanos = 0;
+            }
+        }
+
+        private synchronized Scope open() {
+            Scope scope = new Scope(this, count, connectionWaitNanos, statements.size());
+            if (depth++ == 0) {
+                connectionWaitNanos += pendingConnectionWaitNanos;
+                pendingConnectionWaitNanos = 0;
+            }
+            return scope;
+        }
+
+        private synchronized void close() {
+            if (--depth == 0) {
+                statements.clear();
+                pendingConnectionWaitNanos = 0;
+                epoch++;
+            }
+        }
+
+        private synchronized Link link() {
+            return depth > 0 ? new Link(this, epoch) : null;
+        }
+    }
+
+    private record Link(State state, long epoch) {
+
+        private void statement(String sql) {
+            synchronized (state) {
+                if (state.depth > 0 && state.epoch == epoch) {
+                    state.statement(sql);
+                }
+            }
+        }
+
+        private void connectionAcquired(long nanos) {
+            synchronized (state) {
+                if (state.depth > 0 && state.epoch == epoch) {
+                    state.connectionAcquired(nanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * 중첩된 계측 구간(searchPage -> searchPageSimple 등)은 시작 위치를 따로 기억해서 자기 구간의 SQL만 본다.
+     */
+    public static class Scope implements AutoCloseable {
+
+        private final State state;
+        private final long startCount;
+        private final long startConnectionWait;
+        private final int startIndex;
+
+        private Scope(State state, long startCount, long startConnectionWait, int startIndex) {
+            this.state = state;
+            this.startCount = startCount;
+            this.startConnectionWait = startConnectionWait;
+            this.startIndex = startIndex;
+        }
+
+        public long statementCount() {
+            synchronized (state) {
+                return state.count - startCount;
+            }
+        }
+
+        public long connectionWaitNanos() {
+            synchronized (state) {
+                return state.connectionWaitNanos - startConnectionWait;
+            }
+        }
+
+        public List<String> statements() {
+            synchronized (state) {
+                return List.copyOf(state.statements.subList(startIndex, state.statements.size()));
+            }
+        }
+
+        @Override
+        public void close() {
+            state.close();
+        }
+    }
+}
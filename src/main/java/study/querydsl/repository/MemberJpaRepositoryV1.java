@@ -1,9 +1,14 @@
 package study.querydsl.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,4 +41,44 @@ public class MemberJpaRepositoryV1 {
                 .setParameter("username", username)
                 .getResultList();
     }
+
+    /**
+     * 동적 쿼리를 JPQL 문자열로 직접 조립
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        StringBuilder jpql = new StringBuilder(
+                "select new study.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)" +
+                " from Member m left join m.team t");
+        List<String> where = new ArrayList<>();
+        if (StringUtils.hasText(condition.getUsername())) {
+            where.add("m.username = :username");
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            where.add("t.name = :teamName");
+        }
+        if (condition.getAgeGoe() != null) {
+            where.add("m.age >= :ageGoe");
+        }
+        if (condition.getAgeLoe() != null) {
+            where.add("m.age <= :ageLoe");
+        }
+        if (!where.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", where));
+        }
+
+        TypedQuery<MemberTeamDto> query = em.createQuery(jpql.toString(), MemberTeamDto.class);
+        if (StringUtils.hasText(condition.getUsername())) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query.getResultList();
+    }
 }
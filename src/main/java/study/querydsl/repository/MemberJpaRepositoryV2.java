@@ -48,6 +48,23 @@ public class MemberJpaRepositoryV2 {
         return query.selectFrom(member).where(member.username.eq(username)).fetch();
     }
 
+    /**
+     * 팀을 fetch join 으로 함께 조회 (getTeam() 접근 시 추가 select 가 없다)
+     * 팀이 없는 회원도 포함하도록 left join
+     */
+    public List<Member> findAllWithTeam() {
+        return query.selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .fetch();
+    }
+
+    public List<Member> findByUsernameWithTeam(String username) {
+        return query.selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.username.eq(username))
+                .fetch();
+    }
+
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
         BooleanBuilder builder = new BooleanBuilder();
         if (StringUtils.hasText(condition.getUsername())) {
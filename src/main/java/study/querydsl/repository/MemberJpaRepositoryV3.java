@@ -4,13 +4,19 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.config.HedgedReadExecutor;
 import study.querydsl.dto.*;
 import study.querydsl.entity.Member;
+import study.querydsl.metrics.SearchMetrics;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
@@ -24,29 +30,64 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberJpaRepositoryV3 {
     private final EntityManager em;
     private final JPAQueryFactory query;
-
-    public MemberJpaRepositoryV3(EntityManager em) {
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchQueries searchQueries;
+    private final SearchMetrics searchMetrics;
+    private final HedgedReadExecutor hedgedReads;
+
+    public MemberJpaRepositoryV3(EntityManager em,
+                                 MemberSearchResultCache resultCache,
+                                 MemberSearchQueries searchQueries,
+                                 SearchMetrics searchMetrics,
+                                 HedgedReadExecutor hedgedReads) {
         this.em = em;
         this.query = new JPAQueryFactory(em);
+        this.resultCache = resultCache;
+        this.searchQueries = searchQueries;
+        this.searchMetrics = searchMetrics;
+        this.hedgedReads = hedgedReads;
     }
 
     public void save(Member member) {
         em.persist(member);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl() {
-        return query.selectFrom(member).fetch();
+        return searchMetrics.record("findAll_Querydsl", MemberSearchShape.none(), null, null,
+                () -> query.selectFrom(member).fetch(), List::size);
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername(String username) {
         return query.selectFrom(member).where(member.username.eq(username)).fetch();
     }
 
+    /**
+     * 팀을 fetch join 으로 함께 조회 (getTeam() 접근 시 추가 select 가 없다)
+     * 팀이 없는 회원도 포함하도록 left join
+     */
+    @Transactional(readOnly = true)
+    public List<Member> findAllWithTeam() {
+        return query.selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .fetch();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Member> findByUsernameWithTeam(String username) {
+        return query.selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.username.eq(username))
+                .fetch();
+    }
+
     private BooleanExpression usernameEq(String username) {
         if(StringUtils.hasText(username)) {
             return member.username.eq(username);
@@ -79,7 +120,48 @@ public class MemberJpaRepositoryV3 {
         return ageLoe(ageLoe).and(ageGoe(ageGoe));
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+        MemberSearchKey key = MemberSearchKey.from(condition);
+        MemberSearchShape shape = MemberSearchShape.of(key);
+        return searchMetrics.record("searchByBuilder", shape, key, MemberSearchQueries.searchJpql(shape),
+                () -> resultCache.get("searchByBuilder", key, () -> query.select(new QMemberTeamDto(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name
+                        )).from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+                        .fetch()), List::size);
+    }
+
+    /**
+     * searchByBuilder 와 같은 결과를 hedged read 로 조회 (/v1/members)
+     * 결과 캐시는 hedge 바깥에 두고, 캐시에 없을 때만 primary/레플리카에 캐시를 거치지 않는 조회를 보낸다.
+     * 두 번 보낼 수 있으므로 모양별로 미리 직렬화해 둔 JPQL(MemberSearchQueries)을 쓴다.
+     * primary/레플리카 시도가 각자 읽기 전용 트랜잭션을 시작하므로 호출 트랜잭션 없이 실행한다.
+     */
+    public List<MemberTeamDto> searchHedged(MemberSearchCondition condition) {
+        MemberSearchKey key = MemberSearchKey.from(condition);
+        MemberSearchShape shape = MemberSearchShape.of(key);
+        return searchMetrics.record("searchHedged", shape, key, MemberSearchQueries.searchJpql(shape),
+                () -> resultCache.get("searchByBuilder", key, () -> hedgedReads.execute(() -> searchQueries.search(key))),
+                List::size);
+    }
+
+    /**
+     * searchByBuilder 와 같은 조건을 커서로 한 행씩 흘려보낸다.
+     * 결과 전체를 힙에 올리지 않으므로 반드시 트랜잭션 안에서 사용하고 다 쓰면 close 해야 한다.
+     * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않는다.
+     */
+    public Stream<MemberTeamDto> streamByBuilder(MemberSearchCondition condition, int fetchSize) {
 
         return query.select(new QMemberTeamDto(
                         member.id,
@@ -95,9 +177,12 @@ public class MemberJpaRepositoryV3 {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
-                .fetch();
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberDto> searchMember(MemberSearchCondition condition) {
 
         return query.select(new QMemberDto(
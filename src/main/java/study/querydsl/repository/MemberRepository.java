@@ -1,5 +1,6 @@
 package study.querydsl.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import study.querydsl.entity.Member;
 
@@ -7,4 +8,8 @@ import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
     List<Member> findByUsername(String username);
+
+    //팀을 함께 조회 (left outer join)
+    @EntityGraph(attributePaths = "team")
+    List<Member> findWithTeamByUsername(String username);
 }
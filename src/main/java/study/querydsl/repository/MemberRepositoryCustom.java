@@ -2,9 +2,14 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TotalMode;
 
 
 import java.util.List;
@@ -14,4 +19,16 @@ public interface MemberRepositoryCustom {
 
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
+    Page<MemberTeamDto> searchPageWindowed(MemberSearchCondition condition, Pageable pageable);
+
+    CountedPage<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, TotalMode mode);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long lastMemberId, int size);
+
+    Slice<MemberTeamDto> searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size);
+
+    MemberColumns searchColumnar(MemberSearchCondition condition);
+
 }
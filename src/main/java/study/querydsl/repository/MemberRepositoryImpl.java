@@ -1,36 +1,257 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import study.querydsl.cache.MemberCountCache;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchKey;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.TotalMode;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.metrics.SearchMetrics;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
+/**
+ * 검색만 하므로 읽기 전용 트랜잭션 - 레플리카를 사용하면 레플리카로 라우팅된다
+ */
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    private final EntityManager em;
     private final JPAQueryFactory query;
+    private final MemberCountCache countCache;
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchQueries searchQueries;
+    private final SearchMetrics searchMetrics;
+    private final TransactionTemplate readOnlyTx;
+    private final AsyncTaskExecutor searchExecutor;
+    private final boolean parallelCount;
+    private final long countCap;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em,
+                                MemberCountCache countCache,
+                                MemberSearchResultCache resultCache,
+                                MemberSearchQueries searchQueries,
+                                SearchMetrics searchMetrics,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier("searchExecutor") AsyncTaskExecutor searchExecutor,
+                                @Value("${member.search.parallel-count:false}") boolean parallelCount,
+                                @Value("${member.search.count-cap:10000}") long countCap) {
+        this.em = em;
         this.query = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.resultCache = resultCache;
+        this.searchQueries = searchQueries;
+        this.searchMetrics = searchMetrics;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.searchExecutor = searchExecutor;
+        this.parallelCount = parallelCount;
+        this.countCap = countCap;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return query
+        MemberSearchKey key = MemberSearchKey.from(condition);
+        MemberSearchShape shape = MemberSearchShape.of(key);
+        return searchMetrics.record("search", shape, key, MemberSearchQueries.searchJpql(shape),
+                () -> resultCache.get("search", key, () -> query
+                        .select(new QMemberTeamDto(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name
+                        ))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+                        .fetch()), List::size);
+    }
+
+    /**
+     * 리포트용 대량 조회, DTO 대신 원시 타입 배열로 받는다 (MemberSearchQueries.searchColumnar)
+     */
+    @Override
+    public MemberColumns searchColumnar(MemberSearchCondition condition) {
+        MemberSearchKey key = MemberSearchKey.from(condition);
+        return searchMetrics.record("searchColumnar", MemberSearchShape.of(key), key, null,
+                () -> searchQueries.searchColumnar(key), MemberColumns::getSize);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchKey key = MemberSearchKey.from(condition);
+        return searchMetrics.record("searchPageSimple", MemberSearchShape.of(key), List.of(key, pageable), null,
+                () -> searchPageSimple(condition, key, pageable), Page::getNumberOfElements);
+    }
+
+    private Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, MemberSearchKey key, Pageable pageable) {
+        if (parallelCount && countCache.getIfPresent(key) == null && canRunInOtherTransaction()) {
+            return searchPageParallel(condition, key, pageable);
+        }
+
+        List<MemberTeamDto> content = contentQuery(condition, pageable).fetch();
+        JPAQuery<Long> count = countQuery(condition);
+
+        //전체 카운트는 페이지를 넘겨도 거의 바뀌지 않으므로 조건별로 캐싱
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(key, count::fetchOne));
+
+    }
+
+    /**
+     * content 와 count 를 두 번 왕복하는 대신 count(*) over() 로 한 번에 조회
+     */
+    @Override
+    public Page<MemberTeamDto> searchPageWindowed(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchKey key = MemberSearchKey.from(condition);
+        return searchQueries.searchPageWithTotal(key, pageable,
+                () -> countCache.get(key, () -> countQuery(condition).fetchOne()));
+    }
+
+    /**
+     * 전체 개수 계산 방식을 고를 수 있는 페이징
+     * 넓은 조건에서는 정확한 count 가 페이지 응답 시간의 대부분을 차지하므로
+     * 최대 countCap + 1 건까지만 세거나(CAPPED) 테이블 통계의 추정치(ESTIMATED)를 사용한다.
+     */
+    @Override
+    public CountedPage<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, TotalMode mode) {
+        if (mode == TotalMode.EXACT) {
+            Page<MemberTeamDto> page = searchPageSimple(condition, pageable);
+            return new CountedPage<>(page.getContent(), pageable, page.getTotalElements(), true);
+        }
+
+        List<MemberTeamDto> content = contentQuery(condition, pageable).fetch();
+        //마지막 페이지라면 content 만으로 정확한 전체 개수를 알 수 있다
+        if (!content.isEmpty() && content.size() < pageable.getPageSize()
+                || content.isEmpty() && pageable.getOffset() == 0) {
+            return new CountedPage<>(content, pageable, pageable.getOffset() + content.size(), true);
+        }
+
+        MemberSearchKey key = MemberSearchKey.from(condition);
+        if (mode == TotalMode.ESTIMATED && MemberSearchShape.of(key).index() == 0) {
+            return new CountedPage<>(content, pageable, searchQueries.estimateMemberCount(), false);
+        }
+
+        long counted = searchQueries.countUpTo(key, countCap + 1);
+        if (counted > countCap) {
+            return new CountedPage<>(content, pageable, countCap, false);
+        }
+        return new CountedPage<>(content, pageable, counted, true);
+    }
+
+    /**
+     * content 쿼리는 호출한 트랜잭션(이미 잡고 있는 커넥션)에서, count 쿼리만 searchExecutor 의 읽기 전용 트랜잭션에서 동시에 실행
+     * 페이지 응답 시간이 두 쿼리의 합이 아니라 둘 중 긴 쪽이 된다.
+     *
+     * 워커는 커넥션을 실제로 얻은 뒤에야 count 를 맡는다(claimed).
+     * content 를 다 읽었는데 아직 아무도 맡지 않았다면(큐 대기, 커넥션 대기) 기다리지 않고 현재 커넥션으로 센다.
+     * 따라서 호출 스레드는 커넥션을 이미 가진 워커만 기다리고, 커넥션 풀이 바닥나도 서로 기다리며 멈추지 않는다.
+     * count 가 필요한지는 순차 실행과 같이 content 를 읽은 뒤 정하고(PageableExecutionUtils),
+     * 필요 없는 짧은 페이지면 아직 시작하지 않은 워커가 세지 않도록 막는다.
+     */
+    private Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, MemberSearchKey key, Pageable pageable) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        Supplier<Long> counter = () -> countCache.get(key, () -> countQuery(condition).fetchOne());
+
+        CompletableFuture<Long> background;
+        try {
+            background = CompletableFuture.supplyAsync(() -> readOnlyTx.execute(status -> {
+                holdConnection();
+                return claimed.compareAndSet(false, true) ? counter.get() : null;
+            }), searchExecutor);
+        } catch (RejectedExecutionException e) {
+            background = null;
+        }
+
+        List<MemberTeamDto> content = contentQuery(condition, pageable).fetch();
+        CompletableFuture<Long> counting = background;
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            if (counting == null || claimed.compareAndSet(false, true)) {
+                return counter.get();
+            }
+            return join(counting);
+        });
+        claimed.set(true);
+        return page;
+    }
+
+    private static long join(CompletableFuture<Long> counting) {
+        try {
+            return counting.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 현재 트랜잭션의 커넥션을 풀에서 실제로 꺼내 둔다.
+     * 레플리카 라우팅을 쓰면 LazyConnectionDataSourceProxy 가 첫 SQL 전까지 커넥션을 얻지 않으므로
+     * 트랜잭션을 시작한 것만으로는 커넥션을 가졌다고 볼 수 없다.
+     */
+    private void holdConnection() {
+        em.unwrap(Session.class).doWork(connection -> {
+            if (connection instanceof ConnectionProxy proxy) {
+                proxy.getTargetConnection();
+            }
+        });
+    }
+
+    /**
+     * 다른 스레드의 트랜잭션은 현재 트랜잭션에서 쓴(커밋 전) 데이터를 보지 못하므로
+     * 트랜잭션 밖이거나 읽기 전용 트랜잭션일 때만 병렬로 실행한다.
+     */
+    private boolean canRunInOtherTransaction() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> content = query
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -38,20 +259,71 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         team.id,
                         team.name
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member);
+        return joinTeam(content, condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+    }
+
+    /**
+     * count 쿼리는 팀 이름으로 거를 때만 team 을 join 한다.
+     * 팀 조건이 있으면 팀이 없는 회원은 어차피 빠지므로 inner join 으로 충분하다.
+     */
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> count = query
+                .select(member.count())
+                .from(member);
+        if (StringUtils.hasText(condition.getTeamName())) {
+            count.join(member.team, team);
+        }
+        return count
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
+    }
+
+    /**
+     * count 쿼리 없는 페이징 (무한 스크롤)
+     * pageSize + 1 건을 조회해서 다음 페이지가 있는지만 판단한다.
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = contentQuery(condition, pageable)
+                .limit(pageable.getPageSize() + 1)
                 .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
     }
 
     @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = query
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long lastMemberId, int size) {
+        MemberCursor cursor = lastMemberId == null
+                ? MemberCursor.first(MemberCursor.Sort.ID)
+                : MemberCursor.afterId(lastMemberId);
+        return searchByCursor(condition, cursor, size);
+    }
+
+    /**
+     * 키셋 페이징
+     * offset 대신 마지막으로 읽은 정렬 키 이후부터 읽으므로 몇 번째 페이지든 비용이 같다.
+     * size + 1개를 조회해서 다음 페이지 존재 여부를 판단한다.
+     */
+    @Override
+    public Slice<MemberTeamDto> searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        JPAQuery<MemberTeamDto> select = query
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -59,30 +331,69 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         team.id,
                         team.name
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member);
+        List<MemberTeamDto> content = joinTeam(select, condition.getTeamName())
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        ageLoe(condition.getAgeLoe()),
+                        after(cursor)
                 )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .orderBy(cursorOrder(cursor.getSort()))
+                .limit(size + 1)
                 .fetch();
 
-        JPAQuery<Long> count = query
-                .select(member.count())
-                .from(member)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+    private BooleanExpression after(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        Long lastId = cursor.getLastId();
+        return switch (cursor.getSort()) {
+            case ID -> member.id.gt(lastId);
+            case AGE -> member.age.gt(cursor.getLastAge())
+                    .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(lastId)));
+            case USERNAME -> usernameAfter(cursor.getLastUsername(), lastId);
+        };
+    }
+
+    /**
+     * username 은 null 일 수 있고 null 은 맨 뒤에 정렬된다 (nulls last)
+     * 마지막 행의 username 이 null 이면 남은 null 행만, 아니면 더 큰 이름과 null 행 전부가 다음 대상이다.
+     */
+    private BooleanExpression usernameAfter(String lastUsername, Long lastId) {
+        if (lastUsername == null) {
+            return member.username.isNull().and(member.id.gt(lastId));
+        }
+        return member.username.gt(lastUsername)
+                .or(member.username.eq(lastUsername).and(member.id.gt(lastId)))
+                .or(member.username.isNull());
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, count::fetchOne);
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor.Sort sort) {
+        //정렬 키가 같은 행은 id로 순서를 고정해야 커서가 행을 건너뛰거나 중복하지 않는다
+        return switch (sort) {
+            case ID -> new OrderSpecifier<?>[]{member.id.asc()};
+            case AGE -> new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+            case USERNAME -> new OrderSpecifier<?>[]{member.username.asc().nullsLast(), member.id.asc()};
+        };
+    }
 
+    /**
+     * 결과에 팀 정보가 필요하므로 기본은 left join, 팀 이름으로 거를 때는 inner join
+     */
+    private <T> JPAQuery<T> joinTeam(JPAQuery<T> select, String teamName) {
+        if (StringUtils.hasText(teamName)) {
+            return select.join(member.team, team);
+        }
+        return select.leftJoin(member.team, team);
     }
 
     private BooleanExpression usernameEq(String username) {
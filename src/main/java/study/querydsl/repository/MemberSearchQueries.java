@@ -0,0 +1,345 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 모양별로 미리 직렬화해 둔 검색 JPQL
+ * 모양(16가지)마다 V3 와 같은 Querydsl 쿼리(BooleanExpression)를 한 번만 만들어 JPQL로 직렬화해 두고
+ * 호출마다 파라미터만 바인딩한다. 호출마다 줄어드는 것은 BooleanExpression 트리 생성과 직렬화 비용이다.
+ * (Querydsl 도 같은 모양이면 같은 JPQL을 만들기 때문에 하이버네이트 쿼리 플랜 캐시는 원래부터 적중한다)
+ * count, 윈도 함수 페이징, 컬럼 조회는 네이티브 SQL 이라 where(shape) 를 따로 두고,
+ * 두 조건이 같은 결과를 내는지는 MemberSearchQueriesTest 에서 모양별로 확인한다.
+ */
+@Component
+public class MemberSearchQueries {
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":\\w+");
+
+    private static final QMemberTeamDto PROJECTION =
+            new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+
+    private static final String[] SEARCH = new String[MemberSearchShape.COUNT];
+    //searchColumnar 용 JDBC SQL (위치 파라미터)
+    private static final String[] COLUMNAR = new String[MemberSearchShape.COUNT];
+
+    static {
+        for (MemberSearchShape shape : MemberSearchShape.all()) {
+            SEARCH[shape.index()] = buildSearch(shape);
+            COLUMNAR[shape.index()] = buildColumnar(shape);
+        }
+    }
+
+    private final EntityManager em;
+    private final int columnarFetchSize;
+
+    public MemberSearchQueries(EntityManager em,
+                               @Value("${member.search.columnar.fetch-size:1000}") int columnarFetchSize) {
+        this.em = em;
+        this.columnarFetchSize = columnarFetchSize;
+    }
+
+    public static String searchJpql(MemberSearchShape shape) {
+        return SEARCH[shape.index()];
+    }
+
+    /**
+     * Querydsl 은 DTO 생성자를 JPQL에 넣지 않고 컬럼만 조회한 뒤 자바에서 만들므로 여기서도 같은 프로젝션으로 만든다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<MemberTeamDto> search(MemberSearchKey key) {
+        MemberSearchShape shape = MemberSearchShape.of(key);
+        Query query = em.createQuery(SEARCH[shape.index()]);
+        List<Object> parameters = parameters(shape, key);
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(PROJECTION.newInstance(row));
+        }
+        return result;
+    }
+
+    /**
+     * 페이지 행과 전체 개수를 한 번의 SQL 로 조회 (count(*) over() 윈도 함수)
+     * 요청한 페이지에 행이 하나도 없으면 전체 개수를 알 수 없으므로 totalIfEmpty 로 센다.
+     */
+    @SuppressWarnings("unchecked")
+    public Page<MemberTeamDto> searchPageWithTotal(MemberSearchKey key, Pageable pageable, LongSupplier totalIfEmpty) {
+        MemberSearchShape shape = MemberSearchShape.of(key);
+        Query query = em.createNativeQuery(
+                "select m.id, m.username, m.age, t.id, t.name, count(*) over() as total"
+                        + nativeFrom(shape, true)
+                        + " order by m.id"
+                        + " limit :limit offset :offset");
+        bind(query, shape, key);
+        query.setParameter("limit", pageable.getPageSize());
+        query.setParameter("offset", pageable.getOffset());
+
+        List<Object[]> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, pageable.getOffset() == 0 ? 0 : totalIfEmpty.getAsLong());
+        }
+
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            content.add(new MemberTeamDto(
+                    ((Number) row[0]).longValue(),
+                    (String) row[1],
+                    ((Number) row[2]).intValue(),
+                    row[3] == null ? null : ((Number) row[3]).longValue(),
+                    (String) row[4]
+            ));
+        }
+        long total = ((Number) rows.get(0)[5]).longValue();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 검색 결과를 JDBC ResultSet 에서 바로 원시 타입 배열로 채운다 (MemberColumns)
+     * 엔티티, DTO, 박싱된 값을 만들지 않는다. 하이버네이트를 거치지 않으므로 트랜잭션 안이면 먼저 flush 한다.
+     * 대량 조회이므로 드라이버 기본값 대신 member.search.columnar.fetch-size 단위로 가져온다.
+     */
+    public MemberColumns searchColumnar(MemberSearchKey key) {
+        MemberSearchShape shape = MemberSearchShape.of(key);
+        if (em.isJoinedToTransaction()) {
+            em.flush();
+        }
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(COLUMNAR[shape.index()])) {
+                ps.setFetchSize(columnarFetchSize);
+                bind(ps, shape, key);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return readColumns(rs);
+                }
+            }
+        });
+    }
+
+    private static MemberColumns readColumns(ResultSet rs) throws SQLException {
+        int capacity = 1024;
+        long[] memberIds = new long[capacity];
+        int[] ages = new int[capacity];
+        long[] teamIds = new long[capacity];
+        String[] usernames = new String[capacity];
+        int[] teamNameCodes = new int[capacity];
+        Map<String, Integer> teamNames = new HashMap<>();
+
+        int size = 0;
+        while (rs.next()) {
+            if (size == capacity) {
+                capacity *= 2;
+                memberIds = Arrays.copyOf(memberIds, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamIds = Arrays.copyOf(teamIds, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+                teamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+            }
+            memberIds[size] = rs.getLong(1);
+            ages[size] = rs.getInt(2);
+            long teamId = rs.getLong(3);
+            teamIds[size] = rs.wasNull() ? MemberColumns.NO_TEAM : teamId;
+            usernames[size] = rs.getString(4);
+            teamNameCodes[size] = encode(teamNames, rs.getString(5));
+            size++;
+        }
+
+        return new MemberColumns(size,
+                Arrays.copyOf(memberIds, size),
+                Arrays.copyOf(ages, size),
+                Arrays.copyOf(teamIds, size),
+                Arrays.copyOf(usernames, size),
+                Arrays.copyOf(teamNameCodes, size),
+                dictionary(teamNames));
+    }
+
+    private static int encode(Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.put(value, code);
+        }
+        return code;
+    }
+
+    private static String[] dictionary(Map<String, Integer> codes) {
+        String[] values = new String[codes.size()];
+        codes.forEach((value, code) -> values[code] = value);
+        return values;
+    }
+
+    /**
+     * 최대 limit 건까지만 센다. limit 을 넘는 결과가 많아도 limit 건 이후는 읽지 않는다.
+     */
+    public long countUpTo(MemberSearchKey key, long limit) {
+        MemberSearchShape shape = MemberSearchShape.of(key);
+        Query query = em.createNativeQuery(
+                "select count(*) from (select 1" + nativeFrom(shape, false) + " limit :limit) limited");
+        bind(query, shape, key);
+        query.setParameter("limit", limit);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    /**
+     * 테이블 통계의 member 행 수 추정치 (H2 INFORMATION_SCHEMA)
+     */
+    public long estimateMemberCount() {
+        Object estimate = em.createNativeQuery(
+                        "select row_count_estimate from information_schema.tables" +
+                        " where table_schema = 'PUBLIC' and table_name = 'MEMBER'")
+                .getSingleResult();
+        return ((Number) estimate).longValue();
+    }
+
+    /**
+     * 같은 모양의 네이티브 SQL from/where 절
+     * teamColumns 가 false 면 팀 이름 조건이 있을 때만 team 을 join 한다.
+     */
+    static String nativeFrom(MemberSearchShape shape, boolean teamColumns) {
+        String from = " from member m";
+        if (shape.hasTeamName()) {
+            from += " join team t on t.id = m.team_id";
+        } else if (teamColumns) {
+            from += " left join team t on t.id = m.team_id";
+        }
+        return from + where(shape);
+    }
+
+    static void bind(Query query, MemberSearchShape shape, MemberSearchKey key) {
+        if (shape.hasUsername()) {
+            query.setParameter("username", key.username());
+        }
+        if (shape.hasTeamName()) {
+            query.setParameter("teamName", key.teamName());
+        }
+        if (shape.hasAgeGoe()) {
+            query.setParameter("ageGoe", key.ageGoe());
+        }
+        if (shape.hasAgeLoe()) {
+            query.setParameter("ageLoe", key.ageLoe());
+        }
+    }
+
+    /**
+     * where(shape) 의 파라미터 순서대로 JDBC 파라미터를 바인딩한다.
+     */
+    static void bind(PreparedStatement ps, MemberSearchShape shape, MemberSearchKey key) throws SQLException {
+        List<Object> parameters = parameters(shape, key);
+        for (int i = 0; i < parameters.size(); i++) {
+            ps.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    /**
+     * 조건 순서(username, teamName, ageGoe, ageLoe)대로 모양에 있는 값만
+     * 위치 파라미터(JPQL ?1.., JDBC ?)는 이 순서로 바인딩한다.
+     */
+    static List<Object> parameters(MemberSearchShape shape, MemberSearchKey key) {
+        List<Object> parameters = new ArrayList<>(4);
+        if (shape.hasUsername()) {
+            parameters.add(key.username());
+        }
+        if (shape.hasTeamName()) {
+            parameters.add(key.teamName());
+        }
+        if (shape.hasAgeGoe()) {
+            parameters.add(key.ageGoe());
+        }
+        if (shape.hasAgeLoe()) {
+            parameters.add(key.ageLoe());
+        }
+        return parameters;
+    }
+
+    private static String buildColumnar(MemberSearchShape shape) {
+        String sql = "select m.id, m.age, m.team_id, m.username, t.name"
+                + nativeFrom(shape, true)
+                + " order by m.id";
+        return NAMED_PARAMETER.matcher(sql).replaceAll("?");
+    }
+
+    /**
+     * V3 searchByBuilder 와 같은 Querydsl 쿼리를 모양에 있는 조건만 넣어 직렬화한다.
+     * 조건 값 자리에는 서로 다른 임시 상수를 넣는다. Querydsl 은 상수를 나오는 순서대로 ?1, ?2.. 로 직렬화하므로
+     * parameters(shape, key) 순서와 같아진다.
+     */
+    private static String buildSearch(MemberSearchShape shape) {
+        BooleanBuilder where = new BooleanBuilder();
+        int parameterCount = 0;
+        if (shape.hasUsername()) {
+            where.and(member.username.eq("username"));
+            parameterCount++;
+        }
+        if (shape.hasTeamName()) {
+            where.and(team.name.eq("teamName"));
+            parameterCount++;
+        }
+        if (shape.hasAgeGoe()) {
+            where.and(member.age.goe(0));
+            parameterCount++;
+        }
+        if (shape.hasAgeLoe()) {
+            where.and(member.age.loe(1));
+            parameterCount++;
+        }
+        String jpql = new JPAQuery<Void>((EntityManager) null, HQLTemplates.DEFAULT)
+                .select(PROJECTION)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .toString();
+        if (parameterCount > 0 && (!jpql.contains("?" + parameterCount) || jpql.contains("?" + (parameterCount + 1)))) {
+            throw new IllegalStateException("검색 JPQL 의 파라미터 개수가 모양과 다릅니다: " + jpql);
+        }
+        return jpql;
+    }
+
+    static String where(MemberSearchShape shape) {
+        List<String> where = new ArrayList<>();
+        if (shape.hasUsername()) {
+            where.add("m.username = :username");
+        }
+        if (shape.hasTeamName()) {
+            where.add("t.name = :teamName");
+        }
+        if (shape.hasAgeGoe()) {
+            where.add("m.age >= :ageGoe");
+        }
+        if (shape.hasAgeLoe()) {
+            where.add("m.age <= :ageLoe");
+        }
+        return where.isEmpty() ? "" : " where " + String.join(" and ", where);
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 검색 조건의 모양 - username, teamName, ageGoe, ageLoe 중 어떤 조건이 있는지
+ * 조건 4개의 유무 조합이므로 모양은 16가지뿐이다.
+ */
+public final class MemberSearchShape {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    public static final int COUNT = 16;
+
+    private static final MemberSearchShape[] SHAPES = new MemberSearchShape[COUNT];
+
+    static {
+        for (int i = 0; i < COUNT; i++) {
+            SHAPES[i] = new MemberSearchShape(i);
+        }
+    }
+
+    private final int bits;
+    private final String name;
+
+    private MemberSearchShape(int bits) {
+        this.bits = bits;
+        this.name = buildName(bits);
+    }
+
+    public static MemberSearchShape of(MemberSearchKey key) {
+        int bits = 0;
+        if (key.username() != null) {
+            bits |= USERNAME;
+        }
+        if (key.teamName() != null) {
+            bits |= TEAM_NAME;
+        }
+        if (key.ageGoe() != null) {
+            bits |= AGE_GOE;
+        }
+        if (key.ageLoe() != null) {
+            bits |= AGE_LOE;
+        }
+        return SHAPES[bits];
+    }
+
+    /**
+     * 조건이 하나도 없는 모양 (전체 조회)
+     */
+    public static MemberSearchShape none() {
+        return SHAPES[0];
+    }
+
+    public static List<MemberSearchShape> all() {
+        return Collections.unmodifiableList(Arrays.asList(SHAPES));
+    }
+
+    /**
+     * 0 ~ 15, 배열 인덱스로 사용
+     */
+    public int index() {
+        return bits;
+    }
+
+    public boolean hasUsername() {
+        return (bits & USERNAME) != 0;
+    }
+
+    public boolean hasTeamName() {
+        return (bits & TEAM_NAME) != 0;
+    }
+
+    public boolean hasAgeGoe() {
+        return (bits & AGE_GOE) != 0;
+    }
+
+    public boolean hasAgeLoe() {
+        return (bits & AGE_LOE) != 0;
+    }
+
+    /**
+     * 메트릭 태그 등에 사용하는 이름, 예) "username+ageGoe", 조건이 없으면 "none"
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static String buildName(int bits) {
+        List<String> parts = new ArrayList<>();
+        if ((bits & USERNAME) != 0) {
+            parts.add("username");
+        }
+        if ((bits & TEAM_NAME) != 0) {
+            parts.add("teamName");
+        }
+        if ((bits & AGE_GOE) != 0) {
+            parts.add("ageGoe");
+        }
+        if ((bits & AGE_LOE) != 0) {
+            parts.add("ageLoe");
+        }
+        if (parts.isEmpty()) {
+            return "none";
+        }
+        StringJoiner joiner = new StringJoiner("+");
+        parts.forEach(joiner::add);
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 대량 등록
+ * 입력을 한 줄씩 읽어 chunkSize 건마다 flush/clear 해서 영속성 컨텍스트를 작게 유지한다.
+ * 팀 이름 -> id 는 import 단위로 캐싱하고, clear 이후에는 getReference 로 프록시만 연결한다.
+ */
+@Slf4j
+@Service
+public class MemberBulkImporter {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public MemberBulkImporter(EntityManager em,
+                              ObjectMapper objectMapper,
+                              @Value("${member.import.chunk-size:500}") int chunkSize) {
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional
+    public MemberImportResult importMembers(InputStream in, Format format) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Long> teamIds = new HashMap<>();
+        int teamsCreated = 0;
+        long rows = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!StringUtils.hasText(line) || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            MemberImportRow row = parse(line, format, lineNumber);
+
+            Member member = new Member(row.getUsername(), row.getAge());
+            if (StringUtils.hasText(row.getTeamName())) {
+                Long teamId = teamIds.get(row.getTeamName());
+                if (teamId == null) {
+                    teamId = findTeamId(row.getTeamName());
+                    if (teamId == null) {
+                        Team team = new Team(row.getTeamName());
+                        em.persist(team);
+                        teamId = team.getId();
+                        teamsCreated++;
+                    }
+                    teamIds.put(row.getTeamName(), teamId);
+                }
+                //changeTeam 은 team.members 컬렉션을 초기화하므로 연관관계만 직접 설정
+                member.setTeam(em.getReference(Team.class, teamId));
+            }
+            em.persist(member);
+
+            if (++rows % chunkSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        MemberImportResult result = new MemberImportResult(rows, teamsCreated, (System.nanoTime() - start) / 1_000_000);
+        log.info("member import rows={} teamsCreated={} elapsed={}ms rowsPerSecond={}",
+                result.getRows(), result.getTeamsCreated(), result.getElapsedMillis(), String.format("%.1f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    private Long findTeamId(String teamName) {
+        List<Long> ids = em.createQuery("select t.id from Team t where t.name = :name", Long.class)
+                .setParameter("name", teamName)
+                .setMaxResults(1)
+                .getResultList();
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private MemberImportRow parse(String line, Format format, long lineNumber) {
+        try {
+            if (format == Format.NDJSON) {
+                return objectMapper.readValue(line, MemberImportRow.class);
+            }
+            //username,age,teamName (teamName 은 생략 가능)
+            String[] columns = line.split(",", -1);
+            if (columns.length < 2) {
+                throw new IllegalArgumentException("컬럼 수가 부족합니다.");
+            }
+            String teamName = columns.length > 2 ? columns[2].trim() : null;
+            return new MemberImportRow(columns[0].trim(), Integer.parseInt(columns[1].trim()), teamName);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException(lineNumber + "번째 줄을 읽을 수 없습니다: " + line, e);
+        }
+    }
+
+    private boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase().startsWith("username");
+    }
+}
@@ -0,0 +1,250 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkJobProgress;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크 단위 bulk update/delete
+ * 테이블 전체를 한 문장으로 바꾸는 대신, 조건에 맞는 id 를 키셋(id > lastId)으로 chunkSize 개씩 읽어
+ * member.id in (...) 으로 청크마다 별도 트랜잭션(REQUIRES_NEW)에서 실행한다.
+ * 락을 잡는 시간과 undo 로그가 청크 크기로 제한되고, 청크 사이에는 throttle 만큼 쉰다.
+ * 진행 위치는 BulkJobCheckpoint 에 청크와 같은 트랜잭션으로 남기므로 같은 jobName 으로 다시 호출하면 이어서 실행된다.
+ *
+ * 조건(where)은 member 테이블 컬럼만 사용해야 한다. (bulk update/delete 는 조인할 수 없다)
+ *
+ * updateInContext 는 호출한 트랜잭션 안에서 한 번에 실행하고, 영속성 컨텍스트에 있는 엔티티 중 바뀐 것만 정리한다.
+ */
+@Slf4j
+@Service
+public class MemberBulkOperations {
+
+    private final JPAQueryFactory query;
+    private final EntityManager em;
+    private final TransactionTemplate chunkTx;
+    private final int chunkSize;
+    private final Duration throttle;
+
+    public MemberBulkOperations(EntityManager em,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${member.bulk.chunk-size:1000}") int chunkSize,
+                                @Value("${member.bulk.throttle:50ms}") Duration throttle) {
+        this.em = em;
+        this.query = new JPAQueryFactory(em);
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.throttle = throttle;
+    }
+
+    /**
+     * bulk update 후 영속성 컨텍스트에 남은 변경 대상 엔티티를 어떻게 맞출지
+     */
+    public enum ContextSync {
+        //DB 값으로 다시 읽는다 (엔티티 하나당 select 한 번), 들고 있던 참조가 그대로 최신 값이 된다
+        REFRESH,
+        //영속성 컨텍스트에서 떼어낸다, 다음 조회 때 새로 읽는다
+        DETACH
+    }
+
+    public BulkJobProgress update(String jobName, Predicate where, Consumer<JPAUpdateClause> set) {
+        return update(jobName, where, set, progress -> { });
+    }
+
+    /**
+     * @param set 변경할 컬럼 지정, 예) update -> update.set(member.age, member.age.add(1))
+     */
+    public BulkJobProgress update(String jobName, Predicate where, Consumer<JPAUpdateClause> set,
+                                  Consumer<BulkJobProgress> listener) {
+        return run(jobName, "update", where, ids -> {
+            JPAUpdateClause update = query.update(member);
+            set.accept(update);
+            //id 를 읽은 뒤 바뀐 행은 건드리지 않도록 조건을 다시 건다
+            return update.where(member.id.in(ids), where).execute();
+        }, listener);
+    }
+
+    public BulkJobProgress delete(String jobName, Predicate where) {
+        return delete(jobName, where, progress -> { });
+    }
+
+    public BulkJobProgress delete(String jobName, Predicate where, Consumer<BulkJobProgress> listener) {
+        return run(jobName, "delete", where,
+                ids -> query.delete(member).where(member.id.in(ids), where).execute(),
+                listener);
+    }
+
+    /**
+     * 현재 트랜잭션에서 bulk update 를 실행하고 변경된 id 를 돌려준다.
+     * em.clear() 로 전부 버리는 대신 영속성 컨텍스트에 올라와 있는 변경 대상만 refresh/detach 하고,
+     * 나머지 엔티티는 그대로 둔다. 초기화되지 않은 프록시는 다음 접근 시 새로 읽으므로 건드리지 않는다.
+     */
+    @Transactional
+    public List<Long> updateInContext(Predicate where, Consumer<JPAUpdateClause> set, ContextSync sync) {
+        em.flush();
+        List<Long> ids = query.select(member.id)
+                .from(member)
+                .where(where)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            JPAUpdateClause update = query.update(member);
+            set.accept(update);
+            update.where(member.id.in(chunk), where).execute();
+        }
+
+        syncPersistenceContext(ids, sync);
+        return ids;
+    }
+
+    /**
+     * 바뀐 id 마다 영속성 컨텍스트를 찾는 대신, 영속성 컨텍스트에 있는 Member 만 훑어서 바뀐 것을 고른다.
+     * 대량 변경이라도 비용은 영속성 컨텍스트 크기에 비례한다.
+     * 2차 캐시는 Member 를 캐시하지 않고, 캐시하게 되더라도 bulk update 를 실행할 때 하이버네이트가 리전을 비운다.
+     */
+    private void syncPersistenceContext(List<Long> ids, ContextSync sync) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Member.class);
+        Set<Object> changed = new HashSet<>(ids);
+
+        List<Object> managed = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            EntityEntry entityEntry = entry.getValue();
+            if (entityEntry.getPersister() == persister && !entityEntry.getStatus().isDeletedOrGone()
+                    && changed.contains(entityEntry.getId())) {
+                managed.add(entry.getKey());
+            }
+        }
+
+        for (Object entity : managed) {
+            if (sync == ContextSync.REFRESH) {
+                em.refresh(entity);
+            } else {
+                em.detach(entity);
+            }
+        }
+    }
+
+    private BulkJobProgress run(String jobName, String operation, Predicate where,
+                                ChunkAction action, Consumer<BulkJobProgress> listener) {
+        BulkJobProgress progress;
+        try {
+            progress = chunkTx.execute(status -> toProgress(checkpoint(jobName, operation)));
+        } catch (DataIntegrityViolationException e) {
+            //같은 jobName 으로 동시에 시작해서 다른 실행이 먼저 체크포인트를 만들었다
+            progress = chunkTx.execute(status -> toProgress(checkpoint(jobName, operation)));
+        }
+        if (progress.isCompleted()) {
+            log.info("bulk {} [{}] already completed, processed={}", operation, jobName, progress.getProcessed());
+            return progress;
+        }
+        if (progress.getChunks() > 0) {
+            log.info("bulk {} [{}] resumes after id={}, processed={}",
+                    operation, jobName, progress.getLastId(), progress.getProcessed());
+        }
+
+        while (!progress.isCompleted()) {
+            progress = chunkTx.execute(status -> runChunk(jobName, operation, where, action));
+            listener.accept(progress);
+            log.info("bulk {} [{}] chunk={} processed={} lastId={}",
+                    operation, jobName, progress.getChunks(), progress.getProcessed(), progress.getLastId());
+            if (!progress.isCompleted()) {
+                pause();
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * 체크포인트 행을 비관적 락으로 읽어서, 같은 jobName 으로 동시에 실행되더라도(재시도 등)
+     * 한 청크는 한 번만 처리된다. 다른 실행은 이 청크가 커밋될 때까지 기다렸다가 다음 위치부터 이어간다.
+     */
+    private BulkJobProgress runChunk(String jobName, String operation, Predicate where, ChunkAction action) {
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobName, LockModeType.PESSIMISTIC_WRITE);
+        if (checkpoint.isCompleted()) {
+            return toProgress(checkpoint);
+        }
+        Long lastId = checkpoint.getLastId();
+
+        List<Long> ids = query.select(member.id)
+                .from(member)
+                .where(lastId == null ? null : member.id.gt(lastId), where)
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+
+        if (ids.isEmpty()) {
+            checkpoint.complete();
+            return toProgress(checkpoint);
+        }
+
+        long affected = action.apply(ids);
+        checkpoint.advance(ids.get(ids.size() - 1), affected);
+        if (ids.size() < chunkSize) {
+            checkpoint.complete();
+        }
+        return toProgress(checkpoint);
+    }
+
+    private BulkJobCheckpoint checkpoint(String jobName, String operation) {
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobName);
+        if (checkpoint == null) {
+            checkpoint = new BulkJobCheckpoint(jobName, operation);
+            em.persist(checkpoint);
+        } else if (!checkpoint.getOperation().equals(operation)) {
+            throw new IllegalArgumentException("이미 다른 작업(" + checkpoint.getOperation() + ")에 사용된 jobName 입니다: " + jobName);
+        }
+        return checkpoint;
+    }
+
+    private void pause() {
+        if (throttle.isZero() || throttle.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(throttle.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            //커밋된 청크까지는 체크포인트에 남아 있으므로 같은 jobName 으로 다시 실행하면 이어서 처리된다
+            throw new IllegalStateException("bulk 작업이 중단되었습니다", e);
+        }
+    }
+
+    private BulkJobProgress toProgress(BulkJobCheckpoint checkpoint) {
+        return new BulkJobProgress(checkpoint.getJobName(), checkpoint.getChunks(), checkpoint.getProcessed(),
+                checkpoint.getLastId(), checkpoint.isCompleted());
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        long apply(List<Long> ids);
+    }
+}
@@ -0,0 +1,110 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepositoryV3;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과를 List 로 모으지 않고 조회하는 대로 응답에 바로 쓴다.
+ * 결과 건수와 상관없이 힙 사용량이 일정하게 유지된다.
+ */
+@Service
+public class MemberExportService {
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+        CSV(MediaType.parseMediaType("text/csv"));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    private static final String CSV_HEADER = "memberId,username,age,teamId,teamName";
+
+    private final MemberJpaRepositoryV3 repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public MemberExportService(MemberJpaRepositoryV3 repository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${member.export.fetch-size:500}") int fetchSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    public long export(MemberSearchCondition condition, Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Long rows = readOnlyTx.execute(status -> {
+            try (Stream<MemberTeamDto> stream = repository.streamByBuilder(condition, fetchSize)) {
+                if (format == Format.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                long count = 0;
+                for (MemberTeamDto dto : (Iterable<MemberTeamDto>) stream::iterator) {
+                    writeRow(writer, format, dto);
+                    count++;
+                }
+                writer.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private void writeRow(Writer writer, Format format, MemberTeamDto dto) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(dto));
+        } else {
+            writer.write(String.valueOf(dto.getMemberId()));
+            writer.write(',');
+            writer.write(csv(dto.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(dto.getAge()));
+            writer.write(',');
+            writer.write(dto.getTeamId() == null ? "" : String.valueOf(dto.getTeamId()));
+            writer.write(',');
+            writer.write(csv(dto.getTeamName()));
+        }
+        writer.write('\n');
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -7,11 +7,13 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkOperations;
 
 import java.util.List;
 
@@ -26,6 +28,9 @@ public class UpdateDeleteQuery {
     EntityManager em;
     JPAQueryFactory query;
 
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
     @BeforeEach
     void testEntity() {
         query = new JPAQueryFactory(em);
@@ -117,4 +122,42 @@ public class UpdateDeleteQuery {
 //            System.out.println(member1.toString());
 //        }
 //    }
+
+    @Test
+    @DisplayName("벌크 수정 후 바뀐 엔티티만 다시 읽기 - 나머지 엔티티는 영속성 컨텍스트에 그대로")
+    void bulkUpdateAndRefresh() {
+        List<Member> before = query.selectFrom(member).orderBy(member.age.asc()).fetch();
+        Member member1 = before.get(0);
+        Member member2 = before.get(1);
+
+        List<Long> ids = bulkOperations.updateInContext(member.age.eq(10),
+                update -> update.set(member.username, "비회원"),
+                MemberBulkOperations.ContextSync.REFRESH);
+
+        assertThat(ids).containsExactly(member1.getId());
+        assertThat(member1.getUsername()).isEqualTo("비회원");
+        assertThat(em.contains(member2)).isTrue();
+
+        List<Member> result = query.selectFrom(member).where(member.age.eq(10)).fetch();
+        assertThat(result).containsExactly(member1);
+        assertThat(result.get(0).getUsername()).isEqualTo("비회원");
+    }
+
+    @Test
+    @DisplayName("벌크 수정 후 바뀐 엔티티만 영속성 컨텍스트에서 떼어내기")
+    void bulkUpdateAndDetach() {
+        List<Member> before = query.selectFrom(member).orderBy(member.age.asc()).fetch();
+        Member member1 = before.get(0);
+        Member member2 = before.get(1);
+
+        bulkOperations.updateInContext(member.age.eq(10),
+                update -> update.set(member.username, "비회원"),
+                MemberBulkOperations.ContextSync.DETACH);
+
+        assertThat(em.contains(member1)).isFalse();
+        assertThat(em.contains(member2)).isTrue();
+        Member reloaded = query.selectFrom(member).where(member.age.eq(10)).fetchOne();
+        assertThat(reloaded).isNotSameAs(member1);
+        assertThat(reloaded.getUsername()).isEqualTo("비회원");
+    }
 }
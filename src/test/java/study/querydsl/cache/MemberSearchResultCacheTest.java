@@ -0,0 +1,143 @@
+package study.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.EntityWriteEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepositoryV3;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋되지 않은 데이터가 공유 캐시에 들어가는지 확인해야 하므로 테스트 트랜잭션으로 감싸지 않고 직접 정리한다.
+ */
+@SpringBootTest
+@RecordApplicationEvents
+class MemberSearchResultCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepositoryV3 v3Repository;
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    MemberCountCache countCache;
+
+    @Autowired
+    ApplicationEvents events;
+
+    TransactionTemplate tx;
+    JPAQueryFactory query;
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        query = new JPAQueryFactory(em);
+        tx.executeWithoutResult(status -> {
+            Team cacheTeam = new Team("cacheTeam");
+            em.persist(cacheTeam);
+            em.persist(new Member("cache1", 10, cacheTeam));
+            em.persist(new Member("cache2", 20, cacheTeam));
+        });
+        condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            query.delete(member).where(member.username.startsWith("cache")).execute();
+            query.delete(team).where(team.name.eq("cacheTeam")).execute();
+        });
+    }
+
+    @Test
+    void cachesCommittedResults() {
+        List<MemberTeamDto> first = v3Repository.searchByBuilder(condition);
+        List<MemberTeamDto> second = v3Repository.searchByBuilder(condition);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void uncommittedWritesAreNotCached() {
+        tx.executeWithoutResult(status -> {
+            Team cacheTeam = query.selectFrom(team).where(team.name.eq("cacheTeam")).fetchOne();
+            em.persist(new Member("cache3", 30, cacheTeam));
+
+            //쓰기가 있는 트랜잭션 안에서는 자기 쓰기를 보되 캐시를 거치지 않는다
+            List<MemberTeamDto> first = v3Repository.searchByBuilder(condition);
+            List<MemberTeamDto> second = v3Repository.searchByBuilder(condition);
+            assertThat(first).extracting("username").containsExactlyInAnyOrder("cache1", "cache2", "cache3");
+            assertThat(second).isNotSameAs(first);
+
+            assertThat(repository.searchPageSimple(condition, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(3);
+            assertThat(countCache.getIfPresent(MemberSearchKey.from(condition))).isNull();
+
+            status.setRollbackOnly();
+        });
+
+        assertThat(v3Repository.searchByBuilder(condition)).extracting("username")
+                .containsExactlyInAnyOrder("cache1", "cache2");
+        assertThat(repository.searchPageSimple(condition, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void writesArePublishedOncePerTransaction() {
+        List<MemberTeamDto> cached = v3Repository.searchByBuilder(condition);
+        events.clear();
+
+        tx.executeWithoutResult(status -> {
+            Team cacheTeam = query.selectFrom(team).where(team.name.eq("cacheTeam")).fetchOne();
+            for (int i = 3; i <= 10; i++) {
+                em.persist(new Member("cache" + i, i * 10, cacheTeam));
+            }
+            em.flush();
+        });
+
+        //여러 건을 등록해도 이벤트(무효화)는 트랜잭션당 한 번
+        assertThat(events.stream(EntityWriteEvent.class)).containsExactly(new EntityWriteEvent(Member.class, false));
+        assertThat(v3Repository.searchByBuilder(condition)).isNotSameAs(cached).hasSize(10);
+    }
+
+    @Test
+    void rollbackKeepsCache() {
+        List<MemberTeamDto> cached = v3Repository.searchByBuilder(condition);
+
+        tx.executeWithoutResult(status -> {
+            Team cacheTeam = query.selectFrom(team).where(team.name.eq("cacheTeam")).fetchOne();
+            em.persist(new Member("cache3", 30, cacheTeam));
+            status.setRollbackOnly();
+        });
+
+        //롤백되면 바뀐 데이터가 없으므로 캐시를 비우지 않는다
+        assertThat(v3Repository.searchByBuilder(condition)).isSameAs(cached);
+    }
+}
@@ -0,0 +1,150 @@
+package study.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStats;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlStatementRecorder;
+import study.querydsl.support.SqlStatementRecorderConfig;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋된 변경만 반영되므로 테스트 트랜잭션으로 감싸지 않고 직접 정리한다.
+ */
+@SpringBootTest
+@Import(SqlStatementRecorderConfig.class)
+class TeamStatsCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsCache teamStats;
+
+    @Autowired
+    SqlStatementRecorder recorder;
+
+    TransactionTemplate tx;
+    JPAQueryFactory query;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        query = new JPAQueryFactory(em);
+        teamStats.reconcile();
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("stats1", 10, teamA));
+            em.persist(new Member("stats2", 20, teamA));
+            em.persist(new Member("stats3", 30, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+        recorder.clear();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            query.delete(member).where(member.username.startsWith("stats")).execute();
+            query.delete(team).where(team.name.startsWith("statsTeam")).execute();
+        });
+    }
+
+    @Test
+    void insertIsAppliedIncrementally() {
+        assertThat(stats(teamAId)).extracting("teamName", "memberCount", "ageSum", "minAge", "maxAge", "averageAge")
+                .containsExactly("statsTeamA", 2L, 30L, 10, 20, 15.0);
+        assertThat(stats(teamBId).getMemberCount()).isEqualTo(1);
+        assertNotReconciled();
+    }
+
+    @Test
+    void updateAndDeleteUseOldState() {
+        tx.executeWithoutResult(status -> {
+            Member stats1 = query.selectFrom(member).where(member.username.eq("stats1")).fetchOne();
+            stats1.changeTeam(em.find(Team.class, teamBId));
+            Member stats2 = query.selectFrom(member).where(member.username.eq("stats2")).fetchOne();
+            stats2.setAge(25);
+            em.find(Team.class, teamAId).setName("statsTeamA2");
+        });
+
+        assertThat(stats(teamAId)).extracting("teamName", "memberCount", "minAge", "maxAge")
+                .containsExactly("statsTeamA2", 1L, 25, 25);
+        assertThat(stats(teamBId)).extracting("memberCount", "minAge", "maxAge")
+                .containsExactly(2L, 10, 30);
+
+        tx.executeWithoutResult(status ->
+                em.remove(query.selectFrom(member).where(member.username.eq("stats3")).fetchOne()));
+
+        assertThat(stats(teamBId)).extracting("memberCount", "ageSum", "minAge", "maxAge")
+                .containsExactly(1L, 10L, 10, 10);
+        //변경 감지 update, em.remove 의 delete 는 bulk 로 보지 않으므로 DB 에서 다시 집계하지 않는다
+        assertNotReconciled();
+    }
+
+    @Test
+    void bulkUpdateIsReconciled() {
+        tx.executeWithoutResult(status -> query.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("stats"))
+                .execute());
+
+        assertThat(stats(teamAId)).extracting("ageSum", "minAge", "maxAge")
+                .containsExactly(32L, 11, 21);
+        assertThat(recorder.selects()).anyMatch(sql -> sql.contains("group by"));
+    }
+
+    @Test
+    void changesDuringReconcileAreReplayed() {
+        TeamStatsCache cache = new TeamStatsCache(em, transactionManager) {
+            @Override
+            Map<Long, TeamBucket> load() {
+                Map<Long, TeamBucket> loaded = super.load();
+                //집계 쿼리가 끝난 뒤, 교체 전에 커밋된 변경
+                memberAdded(teamAId, 40);
+                return loaded;
+            }
+        };
+
+        cache.reconcile();
+
+        assertThat(cache.stats()).filteredOn(stats -> stats.getTeamId().equals(teamAId))
+                .extracting("memberCount", "ageSum", "maxAge")
+                .containsExactly(tuple(3L, 70L, 40));
+    }
+
+    private void assertNotReconciled() {
+        assertThat(recorder.selects()).noneMatch(sql -> sql.contains("group by"));
+    }
+
+    private TeamStats stats(Long teamId) {
+        return teamStats.stats().stream()
+                .filter(stats -> stats.getTeamId().equals(teamId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
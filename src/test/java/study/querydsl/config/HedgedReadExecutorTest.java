@@ -0,0 +1,179 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import study.querydsl.config.ReplicaRoutingDataSource.Route;
+import study.querydsl.entity.EntityWriteEvent;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgedReadExecutorTest {
+
+    ThreadPoolTaskExecutor executor;
+    MeterRegistry registry;
+    ReplicaLagGuard lagGuard;
+    HedgedReadExecutor hedgedReads;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("hedge-");
+        executor.initialize();
+        registry = new SimpleMeterRegistry();
+        lagGuard = new ReplicaLagGuard(Duration.ofMinutes(1));
+        hedgedReads = new HedgedReadExecutor(true, true, 0.5, Duration.ofMillis(50),
+                executor, lagGuard, new NoOpTransactionManager(), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void primaryWinsBeforeDelay() {
+        String result = hedgedReads.execute(() -> ReplicaRoutingDataSource.forced().name());
+
+        assertThat(result).isEqualTo("PRIMARY");
+        assertThat(count("member.search.hedge.requests")).isEqualTo(1);
+        assertThat(count("member.search.hedge.issued")).isZero();
+    }
+
+    @Test
+    void replicaWinsAndPrimaryIsCancelled() throws Exception {
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+
+        String result = hedgedReads.execute(() -> {
+            if (ReplicaRoutingDataSource.forced() == Route.PRIMARY) {
+                sleep(5_000, primaryInterrupted);
+            }
+            return ReplicaRoutingDataSource.forced().name();
+        });
+
+        assertThat(result).isEqualTo("REPLICA");
+        assertThat(count("member.search.hedge.issued")).isEqualTo(1);
+        assertThat(registry.get("member.search.hedge.wins").tag("winner", "replica").counter().count()).isEqualTo(1);
+        assertThat(primaryInterrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void primaryWinsAfterHedgeAndReplicaIsCancelled() throws Exception {
+        CountDownLatch replicaInterrupted = new CountDownLatch(1);
+
+        String result = hedgedReads.execute(() -> {
+            if (ReplicaRoutingDataSource.forced() == Route.PRIMARY) {
+                sleep(150, new CountDownLatch(1));
+            } else {
+                sleep(5_000, replicaInterrupted);
+            }
+            return ReplicaRoutingDataSource.forced().name();
+        });
+
+        assertThat(result).isEqualTo("PRIMARY");
+        assertThat(count("member.search.hedge.issued")).isEqualTo(1);
+        assertThat(registry.get("member.search.hedge.wins").tag("winner", "primary").counter().count()).isEqualTo(1);
+        assertThat(replicaInterrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void readsOnCallerWithoutHedgeWhenPoolIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        executor.execute(() -> await(release));
+
+        try {
+            String thread = hedgedReads.execute(() -> Thread.currentThread().getName());
+
+            assertThat(thread).doesNotStartWith("hedge-");
+            assertThat(count("member.search.hedge.rejected")).isEqualTo(1);
+            assertThat(count("member.search.hedge.issued")).isZero();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void skipsHedgeWithinReplicaLag() {
+        lagGuard.onWrite(new EntityWriteEvent(Member.class, false));
+
+        String thread = hedgedReads.execute(() -> Thread.currentThread().getName());
+
+        //레플리카가 최신이 아닐 수 있으므로 레플리카 시도 없이 호출 스레드에서 읽는다
+        assertThat(thread).doesNotStartWith("hedge-");
+        assertThat(count("member.search.hedge.skipped")).isEqualTo(1);
+        assertThat(count("member.search.hedge.issued")).isZero();
+    }
+
+    @Test
+    void delayFollowsLatencyPercentile() {
+        assertThat(hedgedReads.currentDelayNanos()).isEqualTo(Duration.ofMillis(50).toNanos());
+
+        //32건마다 다시 계산, 1 ~ 32 x 10ms 의 p50
+        for (int i = 1; i <= 32; i++) {
+            hedgedReads.recordLatency(Duration.ofMillis(i * 10L).toNanos());
+        }
+        assertThat(hedgedReads.currentDelayNanos()).isEqualTo(Duration.ofMillis(170).toNanos());
+
+        //최소 대기 시간 아래로는 내려가지 않는다
+        for (int i = 0; i < 256; i++) {
+            hedgedReads.recordLatency(Duration.ofMillis(1).toNanos());
+        }
+        assertThat(hedgedReads.currentDelayNanos()).isEqualTo(Duration.ofMillis(50).toNanos());
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private static void sleep(long millis, CountDownLatch interrupted) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 데이터소스 없이 TransactionTemplate 만 통과시킨다
+     */
+    static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * primary/레플리카를 서로 다른 H2 메모리 DB 로 띄워서 실제 라우팅 확인
+ * 레플리카에는 primary 에 없는 회원만 넣어두고, 어느 쪽 데이터가 읽히는지로 경로를 구분한다.
+ * 쓰기 뒤에는 지연 허용치 동안 primary 로 읽으므로, 쓰기가 없는 검증을 먼저 실행한다.
+ * hedged read 도 같은 라우팅 데이터소스로 primary/레플리카 중 실제로 어디서 읽었는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "member.datasource.replica.enabled=true",
+        "member.datasource.replica.url=" + ReplicaRoutingContextTest.REPLICA_URL,
+        "member.datasource.replica.max-lag=1m",
+        "member.search.hedge.enabled=true",
+        "member.search.hedge.min-delay=200ms"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingContextTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    HedgedReadExecutor hedgedReads;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    JdbcTemplate primary;
+    JdbcTemplate replica;
+    TransactionTemplate tx;
+    TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    void before() {
+        primary = new JdbcTemplate(primaryDataSource);
+        //레플리카 풀은 읽기 전용이므로 스키마/데이터는 별도 커넥션으로 준비한다
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("create table if not exists team (id bigint primary key, name varchar(255))");
+        replica.execute("create table if not exists member (id bigint primary key, age integer not null, username varchar(255), team_id bigint)");
+        replica.update("delete from member");
+        replica.update("insert into member (id, age, username, team_id) values (1, 10, 'replicaMember', null)");
+
+        tx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void after() {
+        primary.update("delete from member");
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionReadsReplica() {
+        assertThat(readOnlyTx.execute(status -> usernames())).containsExactly("replicaMember");
+        assertThat(tx.execute(status -> usernames())).isEmpty();
+    }
+
+    @Test
+    @Order(2)
+    void hedgedReadUsesPrimaryThenReplica() {
+        //JDBC 로 직접 넣으면 엔티티 쓰기 이벤트가 없으므로 지연 허용치가 시작되지 않는다
+        primary.update("insert into member (id, age, username, team_id) values (1, 20, 'primaryMember', null)");
+
+        //primary 가 대기 시간 안에 응답하면 읽기 전용이어도 primary 결과
+        assertThat(hedgedReads.execute(this::usernames)).containsExactly("primaryMember");
+
+        //primary 가 늦으면 레플리카 결과
+        double issued = count("member.search.hedge.issued");
+        List<String> result = hedgedReads.execute(() -> {
+            if (ReplicaRoutingDataSource.forced() == ReplicaRoutingDataSource.Route.PRIMARY) {
+                sleep(5_000);
+            }
+            return usernames();
+        });
+        assertThat(result).containsExactly("replicaMember");
+        assertThat(count("member.search.hedge.issued")).isEqualTo(issued + 1);
+    }
+
+    @Test
+    @Order(3)
+    void writeStaysOnPrimary() {
+        tx.executeWithoutResult(status -> em.persist(new Member("primaryMember", 20)));
+
+        assertThat(primary.queryForObject("select count(*) from member where username = 'primaryMember'", Long.class)).isEqualTo(1L);
+        assertThat(replica.queryForObject("select count(*) from member where username = 'primaryMember'", Long.class)).isZero();
+
+        //커밋 직후에는 레플리카에 아직 반영되지 않았을 수 있으므로 읽기 전용이어도 primary 에서 읽는다
+        assertThat(readOnlyTx.execute(status -> usernames())).containsExactly("primaryMember");
+    }
+
+    @Test
+    @Order(4)
+    void hedgedReadSkipsReplicaWithinLag() {
+        tx.executeWithoutResult(status -> em.persist(new Member("primaryMember", 20)));
+        double issued = count("member.search.hedge.issued");
+        double skipped = count("member.search.hedge.skipped");
+
+        //primary 가 늦더라도 방금 커밋한 데이터가 없을 수 있는 레플리카로는 보내지 않는다
+        List<String> result = hedgedReads.execute(() -> {
+            sleep(300);
+            return usernames();
+        });
+        assertThat(result).containsExactly("primaryMember");
+        assertThat(count("member.search.hedge.issued")).isEqualTo(issued);
+        assertThat(count("member.search.hedge.skipped")).isEqualTo(skipped + 1);
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<String> usernames() {
+        return em.createQuery("select m.username from Member m", String.class).getResultList();
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.EntityWriteEvent;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(new ReplicaLagGuard(Duration.ofSeconds(1)));
+
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+    }
+
+    @Test
+    void readAfterWriteGoesToPrimaryWithinMaxLag() {
+        ReplicaLagGuard lagGuard = new ReplicaLagGuard(Duration.ofMinutes(1));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagGuard);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        lagGuard.onWrite(new EntityWriteEvent(Member.class, false));
+
+        //방금 쓴 데이터가 레플리카에 아직 없을 수 있으므로 primary 에서 읽는다
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+    }
+
+    @Test
+    void lagIsMeasuredFromCommit() {
+        ReplicaLagGuard lagGuard = new ReplicaLagGuard(Duration.ofMinutes(1));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagGuard);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lagGuard.onWrite(new EntityWriteEvent(Member.class, false));
+            //아직 커밋 전이므로 지연 시간을 재기 시작하지 않는다
+            assertThat(lagGuard.replicaMayBeStale()).isFalse();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(lagGuard.replicaMayBeStale()).isTrue();
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+    }
+}
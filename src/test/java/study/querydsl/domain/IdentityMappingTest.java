@@ -0,0 +1,46 @@
+package study.querydsl.domain;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.support.SqlStatementRecorder;
+import study.querydsl.support.SqlStatementRecorderConfig;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * META-INF/identity-ids.xml 로 기존 IDENTITY 전략을 켰을 때 persist 시점에 바로 insert 되는지 확인
+ * 스키마가 달라지므로 별도 인메모리 DB 를 쓴다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:identity;DB_CLOSE_DELAY=-1",
+        "spring.jpa.mapping-resources=META-INF/identity-ids.xml"
+})
+@Transactional
+@Import(SqlStatementRecorderConfig.class)
+class IdentityMappingTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SqlStatementRecorder recorder;
+
+    @Test
+    void identityInsertsOnPersist() {
+        recorder.clear();
+
+        Member member = new Member("identity", 10);
+        em.persist(member);
+
+        //flush 전인데도 id 를 받기 위해 insert 가 이미 실행됐다 (시퀀스 호출 없음)
+        assertThat(member.getId()).isNotNull();
+        assertThat(recorder.statements())
+                .anyMatch(sql -> sql.startsWith("insert into member"))
+                .noneMatch(sql -> sql.contains("member_seq"));
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.domain;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class TeamSecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+    Long teamId;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.flush();
+        em.clear();
+        teamId = teamA.getId();
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        emf.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void teamIsServedFromSecondLevelCache() {
+        em.find(Team.class, teamId);
+        em.clear();
+        Team found = em.find(Team.class, teamId);
+
+        assertThat(found.getName()).isEqualTo("teamA");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(emf.getCache().contains(Team.class, teamId)).isTrue();
+    }
+
+    @Test
+    void bulkUpdateEvictsTeamRegion() {
+        em.find(Team.class, teamId);
+        em.clear();
+        assertThat(emf.getCache().contains(Team.class, teamId)).isTrue();
+
+        new JPAQueryFactory(em)
+                .update(team)
+                .set(team.name, "teamB")
+                .where(team.id.eq(teamId))
+                .execute();
+
+        assertThat(emf.getCache().contains(Team.class, teamId)).isFalse();
+        assertThat(em.find(Team.class, teamId).getName()).isEqualTo("teamB");
+    }
+}
@@ -0,0 +1,145 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberSearchResultCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepositoryV3;
+import study.querydsl.repository.MemberSearchShape;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Transactional
+@SpringBootTest
+class SearchMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepositoryV3 repository;
+
+    @Autowired
+    MemberSearchResultCache resultCache;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    SqlStatementTracker statementTracker;
+
+    @Autowired
+    SearchMetrics searchMetrics;
+
+    @Autowired
+    @Qualifier("searchExecutor")
+    AsyncTaskExecutor searchExecutor;
+
+    @Test
+    void searchByBuilderIsTaggedByShape() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+        resultCache.invalidateAll();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(30);
+
+        Timer timer = registry.find("member.repository.calls")
+                .tags("method", "searchByBuilder", "shape", "teamName+ageLoe", "outcome", "success")
+                .timer();
+        long before = timer == null ? 0 : timer.count();
+
+        repository.searchByBuilder(condition);
+
+        timer = registry.get("member.repository.calls")
+                .tags("method", "searchByBuilder", "shape", "teamName+ageLoe", "outcome", "success")
+                .timer();
+        assertThat(timer.count()).isEqualTo(before + 1);
+
+        DistributionSummary rows = registry.get("member.repository.rows")
+                .tags("method", "searchByBuilder", "shape", "teamName+ageLoe")
+                .summary();
+        assertThat(rows.max()).isEqualTo(2);
+
+        DistributionSummary statements = registry.get("member.repository.statements")
+                .tags("method", "searchByBuilder", "shape", "teamName+ageLoe")
+                .summary();
+        assertThat(statements.max()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void trackerCapturesStatementsOfNestedScopes() {
+        try (SqlStatementTracker.Scope outer = statementTracker.open()) {
+            em.createQuery("select m from Member m").getResultList();
+            try (SqlStatementTracker.Scope inner = statementTracker.open()) {
+                em.createQuery("select t from Team t").getResultList();
+                assertThat(inner.statementCount()).isEqualTo(1);
+                assertThat(inner.statements()).singleElement().asString().contains("team");
+            }
+            assertThat(outer.statementCount()).isEqualTo(2);
+            assertThat(outer.statements()).hasSize(2);
+        }
+    }
+
+    @Test
+    void failedCallIsRecordedWithErrorOutcome() {
+        assertThatThrownBy(() -> searchMetrics.record("failingSearch", MemberSearchShape.none(), null, null,
+                () -> {
+                    em.createQuery("select m from Member m").getResultList();
+                    throw new IllegalStateException("boom");
+                }, rows -> 0))
+                .isInstanceOf(IllegalStateException.class);
+
+        Timer timer = registry.get("member.repository.calls")
+                .tags("method", "failingSearch", "outcome", "error")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(registry.find("member.repository.calls")
+                .tags("method", "failingSearch", "outcome", "success")
+                .timer().count()).isZero();
+        assertThat(registry.get("member.repository.statements")
+                .tags("method", "failingSearch")
+                .summary().max()).isEqualTo(1);
+    }
+
+    @Test
+    void statementsOfExecutorTasksAreCounted() throws Exception {
+        try (SqlStatementTracker.Scope scope = statementTracker.open()) {
+            em.createQuery("select m from Member m").getResultList();
+            //searchExecutor 작업은 다른 스레드, 다른 트랜잭션에서 실행된다
+            CompletableFuture.runAsync(() -> statementTracker.onStatement("select count(*) from member"), searchExecutor)
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(scope.statementCount()).isEqualTo(2);
+            assertThat(scope.statements()).last().asString().contains("count(*)");
+        }
+
+        //구간이 끝난 뒤에 실행된 작업(hedge 에서 진 쪽 등)은 다음 구간에 섞이지 않는다
+        Runnable late;
+        try (SqlStatementTracker.Scope scope = statementTracker.open()) {
+            late = statementTracker.propagate(() -> statementTracker.onStatement("select 1"));
+        }
+        try (SqlStatementTracker.Scope next = statementTracker.open()) {
+            CompletableFuture.runAsync(late).get(5, TimeUnit.SECONDS);
+            assertThat(next.statementCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchKey;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLogTest {
+
+    SlowQueryLog slowQueryLog = new SlowQueryLog(200, 0.0);
+
+    @Test
+    void usernameIsHashed() {
+        MemberSearchKey key = new MemberSearchKey("member1", "teamA", 10, null);
+
+        String masked = slowQueryLog.mask(key).toString();
+
+        assertThat(masked).doesNotContain("member1")
+                .contains("teamName=teamA", "ageGoe=10", "ageLoe=null")
+                .matches(".*username=#[0-9a-f]{8},.*");
+        //같은 이름은 같은 값으로 남아 로그에서 묶어 볼 수 있다
+        assertThat(slowQueryLog.mask(key).toString()).isEqualTo(masked);
+    }
+
+    @Test
+    void keysInsideListAreMasked() {
+        MemberSearchKey key = new MemberSearchKey("member1", null, null, null);
+
+        Object masked = slowQueryLog.mask(List.of(key, PageRequest.of(0, 10)));
+
+        assertThat(masked.toString()).doesNotContain("member1").contains("Page request");
+    }
+}
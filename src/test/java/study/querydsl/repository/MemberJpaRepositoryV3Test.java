@@ -13,6 +13,7 @@ import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -114,7 +115,50 @@ class MemberJpaRepositoryV3Test {
         assertThat(result).hasSize(3);
     }
 
+    @Test
+    void streamTest() {
+        Team team1 = new Team("teamA");
+        Team team2 = new Team("teamB");
+
+        em.persist(team1);
+        em.persist(team2);
 
+        repository.save(new Member("memberA", 10, team1));
+        repository.save(new Member("memberB", 20, team1));
+        repository.save(new Member("memberC", 30, team2));
+        repository.save(new Member("memberD", 40, team2));
 
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        try (Stream<MemberTeamDto> stream = repository.streamByBuilder(condition, 1)) {
+            List<MemberTeamDto> result = stream.toList();
+
+            assertThat(result).hasSize(2);
+            assertThat(result).extracting("username").containsExactlyInAnyOrder("memberC", "memberD");
+        }
+    }
 
-}
\ No newline at end of file
+    @Test
+    void searchResultCacheTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        repository.save(new Member("memberA", 10, team1));
+        repository.save(new Member("memberB", 20, team1));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<MemberTeamDto> first = repository.searchByBuilder(condition);
+        List<MemberTeamDto> second = repository.searchByBuilder(condition);
+        //커밋 전 쓰기가 있는 트랜잭션에서는 캐시를 거치지 않고 매번 조회한다
+        assertThat(second).isNotSameAs(first);
+        assertThat(second).isEqualTo(first);
+
+        //회원이 추가되면 무효화되어 다시 조회한다
+        repository.save(new Member("memberC", 30, team1));
+        List<MemberTeamDto> third = repository.searchByBuilder(condition);
+        assertThat(third).extracting("username").containsExactlyInAnyOrder("memberA", "memberB", "memberC");
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TotalMode;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * count-cap 을 작게 잡고 CAPPED 페이징이 cap 을 넘는 결과를 하한값으로 내려주는지 확인
+ */
+@SpringBootTest(properties = "member.search.count-cap=3")
+@Transactional
+class MemberRepositoryCountCapTest {
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void searchPageCappedOverCapTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Member("member" + i, i * 10, team1));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //5건이지만 cap(3) + 1 건까지만 세고, 전체 개수는 cap 으로 내려준다
+        CountedPage<MemberTeamDto> page = repository.searchPage(condition, PageRequest.of(0, 2), TotalMode.CAPPED);
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.isTotalExact()).isFalse();
+        assertThat(page.hasNext()).isTrue();
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.repository;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 레플리카 라우팅(LazyConnectionDataSourceProxy)에서도 같은 검증
+ * 트랜잭션을 시작해도 첫 SQL 전까지 커넥션을 얻지 않으므로, 워커가 커넥션을 실제로 얻은 뒤에 count 를 맡는지 확인한다.
+ * 레플리카는 primary 와 같은 DB 를 가리키고, 읽기 전용 트랜잭션이 모두 커넥션 2개짜리 레플리카 풀을 쓰도록 지연 허용치를 끈다.
+ */
+@SpringBootTest(properties = {
+        "member.search.parallel-count=true",
+        "member.search.count-cache.enabled=false",
+        "member.search.executor.pool-size=4",
+        "member.datasource.replica.enabled=true",
+        "member.datasource.replica.url=${spring.datasource.url}",
+        "member.datasource.replica.maximum-pool-size=2",
+        "member.datasource.replica.max-lag=0s"
+})
+class MemberRepositoryParallelCountReplicaTest extends MemberRepositoryParallelCountTest {
+}
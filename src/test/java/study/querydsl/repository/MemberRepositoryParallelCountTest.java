@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 병렬 count 가 커넥션 풀보다 많은 동시 요청에서도 멈추지 않는지 확인
+ * 커넥션 2개, searchExecutor 4개로 16개 요청을 동시에 보낸다.
+ */
+@SpringBootTest(properties = {
+        "member.search.parallel-count=true",
+        "member.search.count-cache.enabled=false",
+        "member.search.executor.pool-size=4",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=3000"
+})
+class MemberRepositoryParallelCountTest {
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team poolTeam = new Team("poolTeam");
+            em.persist(poolTeam);
+            for (int i = 0; i < 3; i++) {
+                em.persist(new Member("pool" + i, i * 10, poolTeam));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory query = new JPAQueryFactory(em);
+            query.delete(member).where(member.username.startsWith("pool")).execute();
+            query.delete(team).where(team.name.eq("poolTeam")).execute();
+        });
+    }
+
+    @Test
+    void moreConcurrentRequestsThanConnections() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("poolTeam");
+
+        int requests = 16;
+        ExecutorService callers = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<Page<MemberTeamDto>>> pages = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                pages.add(callers.submit(() -> repository.searchPageSimple(condition, PageRequest.of(0, 2))));
+            }
+            for (Future<Page<MemberTeamDto>> page : pages) {
+                //커넥션 타임아웃(3초) 안에 모두 끝나야 한다
+                Page<MemberTeamDto> result = page.get(10, TimeUnit.SECONDS);
+                assertThat(result.getContent()).hasSize(2);
+                assertThat(result.getTotalElements()).isEqualTo(3);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void shortPageUsesContentSize() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("poolTeam");
+
+        //첫 페이지가 페이지 크기보다 작으면 순차 실행처럼 content 만으로 전체 개수를 정한다
+        Page<MemberTeamDto> first = repository.searchPageSimple(condition, PageRequest.of(0, 10));
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(first.getTotalElements()).isEqualTo(3);
+
+        Page<MemberTeamDto> last = repository.searchPageSimple(condition, PageRequest.of(1, 2));
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.getTotalElements()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,169 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlStatementRecorder;
+import study.querydsl.support.SqlStatementRecorderConfig;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 리포지토리 호출이 실제로 어떤 SQL 을 몇 번 실행하는지 검증
+ */
+@SpringBootTest
+@Transactional
+@Import(SqlStatementRecorderConfig.class)
+class MemberRepositoryStatementTest {
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepositoryV2 repositoryV2;
+
+    @Autowired
+    MemberJpaRepositoryV3 repositoryV3;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    SqlStatementRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        Team team1 = new Team("teamA");
+        Team team2 = new Team("teamB");
+        em.persist(team1);
+        em.persist(team2);
+
+        em.persist(new Member("memberA", 10, team1));
+        em.persist(new Member("memberB", 20, team1));
+        em.persist(new Member("memberC", 30, team2));
+        em.persist(new Member("memberD", 40, null));
+
+        em.flush();
+        em.clear();
+        //Team 2차 캐시에 남은 값이 있으면 select 개수가 달라진다
+        emf.getCache().evictAll();
+        recorder.clear();
+    }
+
+    @Test
+    void countQueryJoinsTeamOnlyWhenFilteredByTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Page<MemberTeamDto> result = repository.searchPageSimple(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        List<String> selects = recorder.selects();
+        assertThat(selects).hasSize(2);
+        //팀 조건이 있으면 content, count 모두 inner join
+        assertThat(selects).allSatisfy(sql -> assertThat(sql).contains(" join team ").doesNotContain("left join"));
+        assertThat(countQuery(selects)).contains(" join team ");
+    }
+
+    @Test
+    void countQueryWithoutTeamFilterDoesNotJoin() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = repository.searchPageSimple(condition, PageRequest.of(0, 1));
+
+        //팀이 없는 memberD 도 포함
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        List<String> selects = recorder.selects();
+        assertThat(selects).hasSize(2);
+        assertThat(countQuery(selects)).doesNotContain("team");
+        assertThat(selects).anySatisfy(sql -> assertThat(sql).contains("left join team "));
+    }
+
+    @Test
+    void windowedPageUsesSingleStatement() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> result = repository.searchPageWindowed(condition, PageRequest.of(1, 3));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("memberD");
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(recorder.selects()).hasSize(1);
+        assertThat(recorder.selects().get(0)).contains("over()");
+    }
+
+    @Test
+    void sliceDoesNotCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = repository.searchSlice(condition, PageRequest.of(0, 3));
+        Slice<MemberTeamDto> last = repository.searchSlice(condition, PageRequest.of(1, 3));
+
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.hasNext()).isFalse();
+        assertThat(recorder.selects()).hasSize(2).noneMatch(sql -> sql.contains("count("));
+    }
+
+    @Test
+    void lazyTeamIsBatchFetched() {
+        List<Member> members = repositoryV3.findAll_Querydsl();
+        members.forEach(m -> teamName(m));
+
+        //회원 1번 + 팀 2개를 한 번에 (default_batch_fetch_size)
+        assertThat(recorder.selects()).hasSize(2);
+    }
+
+    @Test
+    void findAllWithTeamUsesSingleStatement() {
+        List<Member> v2 = repositoryV2.findAllWithTeam();
+        v2.forEach(m -> teamName(m));
+        em.clear();
+        List<Member> v3 = repositoryV3.findAllWithTeam();
+        v3.forEach(m -> teamName(m));
+
+        assertThat(v2).hasSize(4);
+        assertThat(v3).hasSize(4);
+        assertThat(recorder.selects()).hasSize(2);
+    }
+
+    @Test
+    void findByUsernameWithTeamUsesSingleStatement() {
+        assertThat(teamName(repositoryV2.findByUsernameWithTeam("memberA").get(0))).isEqualTo("teamA");
+        em.clear();
+        assertThat(teamName(repositoryV3.findByUsernameWithTeam("memberB").get(0))).isEqualTo("teamA");
+        em.clear();
+        assertThat(teamName(repository.findWithTeamByUsername("memberC").get(0))).isEqualTo("teamB");
+
+        assertThat(recorder.selects()).hasSize(3).allSatisfy(sql -> assertThat(sql).contains("join team"));
+    }
+
+    private String teamName(Member member) {
+        return member.getTeam() == null ? null : member.getTeam().getName();
+    }
+
+    private String countQuery(List<String> selects) {
+        return selects.stream()
+                .filter(sql -> sql.contains("count("))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -1,21 +1,30 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.CountedPage;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchKey;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TotalMode;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
 
 @SpringBootTest
 @Transactional
@@ -27,6 +36,9 @@ class MemberRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    MemberSearchQueries searchQueries;
+
     @Test
     void searchTest() {
         Team team1 = new Team("teamA");
@@ -138,4 +150,208 @@ class MemberRepositoryTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    void searchSliceTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        Member member1 = new Member("memberA", 10, team1);
+        Member member2 = new Member("memberB", 20, team1);
+        Member member3 = new Member("memberC", 30, team1);
+        Member member4 = new Member("memberD", 40, team1);
+        Member member5 = new Member("memberE", 50, team1);
+
+        repository.save(member1);
+        repository.save(member2);
+        repository.save(member3);
+        repository.save(member4);
+        repository.save(member5);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = repository.searchSlice(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("memberA", "memberB");
+        assertThat(first.hasNext()).isTrue();
+
+        //마지막으로 읽은 id 이후부터 조회
+        Long lastId = first.getContent().get(1).getMemberId();
+        Slice<MemberTeamDto> second = repository.searchSlice(condition, lastId, 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("memberC", "memberD");
+
+        Slice<MemberTeamDto> last = repository.searchSlice(condition, second.getContent().get(1).getMemberId(), 2);
+        assertThat(last.getContent()).extracting("username").containsExactly("memberE");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void searchByCursorTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        //같은 나이가 섞여 있어도 (age, id) 복합 키로 빠짐없이 넘겨야 한다
+        repository.save(new Member("memberA", 30, team1));
+        repository.save(new Member("memberB", 20, team1));
+        repository.save(new Member("memberC", 30, team1));
+        repository.save(new Member("memberD", 10, team1));
+        repository.save(new Member("memberE", 20, team1));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        MemberCursor cursor = MemberCursor.first(MemberCursor.Sort.AGE);
+        List<String> usernames = new ArrayList<>();
+
+        Slice<MemberTeamDto> slice;
+        do {
+            slice = repository.searchByCursor(condition, cursor, 2);
+            slice.forEach(dto -> usernames.add(dto.getUsername()));
+            if (slice.hasNext()) {
+                List<MemberTeamDto> content = slice.getContent();
+                //인코딩/디코딩을 거쳐도 같은 커서여야 한다
+                cursor = MemberCursor.decode(MemberCursor.after(MemberCursor.Sort.AGE, content.get(content.size() - 1)).encode());
+            }
+        } while (slice.hasNext());
+
+        assertThat(usernames).containsExactly("memberD", "memberB", "memberE", "memberA", "memberC");
+    }
+
+    @Test
+    void searchByCursorUsernameWithNullsTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        //null 과 빈 문자열은 다른 값이고, null 은 맨 뒤에 온다
+        Member nullA = new Member(null, 10, team1);
+        Member nullB = new Member(null, 20, team1);
+        repository.save(new Member("memberB", 30, team1));
+        repository.save(nullA);
+        repository.save(new Member("", 40, team1));
+        repository.save(nullB);
+        repository.save(new Member("memberA", 50, team1));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        MemberCursor cursor = MemberCursor.first(MemberCursor.Sort.USERNAME);
+        List<Integer> ages = new ArrayList<>();
+
+        Slice<MemberTeamDto> slice;
+        do {
+            slice = repository.searchByCursor(condition, cursor, 1);
+            slice.forEach(dto -> ages.add(dto.getAge()));
+            if (slice.hasNext()) {
+                List<MemberTeamDto> content = slice.getContent();
+                cursor = MemberCursor.decode(MemberCursor.after(MemberCursor.Sort.USERNAME, content.get(content.size() - 1)).encode());
+            }
+        } while (slice.hasNext());
+
+        //"" -> memberA -> memberB -> null(id 순)
+        assertThat(ages).containsExactly(40, 50, 30, 10, 20);
+    }
+
+    @Test
+    void searchPageCountCacheTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        repository.save(new Member("memberA", 10, team1));
+        repository.save(new Member("memberB", 20, team1));
+        repository.save(new Member("memberC", 30, team1));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        assertThat(repository.searchPageSimple(condition, pageRequest).getTotalElements()).isEqualTo(3);
+
+        //save 하면 캐시된 카운트가 무효화되어야 한다
+        repository.save(new Member("memberD", 40, team1));
+        assertThat(repository.searchPageSimple(condition, pageRequest).getTotalElements()).isEqualTo(4);
+
+        //Querydsl bulk delete 도 마찬가지
+        new JPAQueryFactory(em)
+                .delete(member)
+                .where(member.age.goe(30))
+                .execute();
+        assertThat(repository.searchPageSimple(condition, pageRequest).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void searchPageCappedTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Member("member" + i, i * 10, team1));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //cap 보다 적으면 정확한 개수
+        CountedPage<MemberTeamDto> page = repository.searchPage(condition, PageRequest.of(0, 2), TotalMode.CAPPED);
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.isTotalExact()).isTrue();
+
+        //limit 건까지만 센다
+        assertThat(searchQueries.countUpTo(MemberSearchKey.from(condition), 3)).isEqualTo(3);
+    }
+
+    @Test
+    void searchPageLastPageIsExactTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Member("member" + i, i * 10, team1));
+        }
+
+        //마지막 페이지는 count 없이 content 만으로 정확한 개수를 계산
+        CountedPage<MemberTeamDto> page = repository.searchPage(new MemberSearchCondition(), PageRequest.of(1, 3), TotalMode.ESTIMATED);
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.isTotalExact()).isTrue();
+    }
+
+    @Test
+    void searchPageEstimatedTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Member("member" + i, i * 10, team1));
+        }
+
+        //조건이 없고 마지막 페이지가 아니면 count 대신 테이블 통계의 추정치를 쓴다
+        CountedPage<MemberTeamDto> page = repository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 2), TotalMode.ESTIMATED);
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.isTotalExact()).isFalse();
+        assertThat(page.getTotalElements()).isEqualTo(Math.max(searchQueries.estimateMemberCount(), 2));
+    }
+
+    @Test
+    void searchColumnarTest() {
+        Team team1 = new Team("teamA");
+        em.persist(team1);
+        repository.save(new Member("member1", 10, team1));
+        repository.save(new Member("member1", 20, team1));
+        repository.save(new Member("member2", 30, null));
+        //flush 하지 않아도 JDBC 조회 전에 반영된다
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(30);
+        MemberColumns columns = repository.searchColumnar(condition);
+        List<MemberTeamDto> expected = repository.search(condition).stream()
+                .sorted((a, b) -> Long.compare(a.getMemberId(), b.getMemberId()))
+                .toList();
+
+        assertThat(columns.getSize()).isEqualTo(expected.size()).isEqualTo(3);
+        for (int i = 0; i < columns.getSize(); i++) {
+            MemberTeamDto dto = expected.get(i);
+            assertThat(columns.getMemberIds()[i]).isEqualTo(dto.getMemberId());
+            assertThat(columns.getAges()[i]).isEqualTo(dto.getAge());
+            assertThat(columns.getTeamIds()[i]).isEqualTo(dto.getTeamId() == null ? MemberColumns.NO_TEAM : dto.getTeamId());
+            assertThat(columns.username(i)).isEqualTo(dto.getUsername());
+            assertThat(columns.teamName(i)).isEqualTo(dto.getTeamName());
+        }
+        //팀 이름은 사전에 한 번만, 회원 이름은 행마다 그대로
+        assertThat(columns.getUsernames()).containsExactly("member1", "member1", "member2");
+        assertThat(columns.getTeamNameDictionary()).containsExactly("teamA");
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 검색 조건 모양별로 H2 EXPLAIN 을 실행해서 인덱스를 타는지 확인
+ * 조건이 하나도 없는 모양(none)은 전체 조회이므로 제외한다.
+ * 나이 조건만 있는 모양(ageGoe, ageLoe, ageGoe+ageLoe)도 제외한다.
+ * 나이 범위는 보통 넓어서 테이블 스캔이 나을 수 있고, 나이 단독 인덱스를 둘지는 테스트가 정할 일이 아니다.
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchIndexTest {
+
+    private static final MemberSearchKey KEY = new MemberSearchKey("member42", "team3", 90, 95);
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teams.add(team);
+        }
+        for (int i = 0; i < 5000; i++) {
+            em.persist(new Member("member" + i, i % 100, teams.get(i % 10)));
+        }
+        em.flush();
+        em.clear();
+        //옵티마이저가 실제 데이터 분포를 보도록 통계 갱신
+        em.createNativeQuery("ANALYZE").executeUpdate();
+    }
+
+    @Test
+    void searchShapesWithUsernameOrTeamUseIndex() {
+        for (MemberSearchShape shape : MemberSearchShape.all()) {
+            if (!shape.hasUsername() && !shape.hasTeamName()) {
+                continue;
+            }
+            String plan = (String) explain(shape).getSingleResult();
+
+            assertThat(plan)
+                    .as("%s 모양의 실행 계획: %s", shape, plan)
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    /**
+     * 실제 검색 쿼리와 같은 from/where 절(MemberSearchQueries.nativeFrom)로 EXPLAIN 을 만들고,
+     * 모양에 해당하는 파라미터만 바인딩한다.
+     */
+    private Query explain(MemberSearchShape shape) {
+        Query query = em.createNativeQuery("EXPLAIN select m.id, m.username, m.age, t.id, t.name"
+                + MemberSearchQueries.nativeFrom(shape, true));
+        MemberSearchQueries.bind(query, shape, KEY);
+        return query;
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 미리 직렬화해 둔 JPQL, Querydsl 동적 쿼리(V3), 네이티브 where 가 모든 모양에서 같은 결과를 내는지 확인
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchQueriesTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueries searchQueries;
+
+    @Autowired
+    MemberJpaRepositoryV3 repository;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            Team team = i % 3 == 0 ? null : i % 2 == 1 ? teamA : teamB;
+            em.persist(new Member("member" + i, i * 10, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void everyShapeMatchesQuerydsl() {
+        for (MemberSearchShape shape : MemberSearchShape.all()) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername(shape.hasUsername() ? "member1" : null);
+            condition.setTeamName(shape.hasTeamName() ? "teamA" : null);
+            condition.setAgeGoe(shape.hasAgeGoe() ? 10 : null);
+            condition.setAgeLoe(shape.hasAgeLoe() ? 60 : null);
+            MemberSearchKey key = MemberSearchKey.from(condition);
+
+            List<MemberTeamDto> compiled = searchQueries.search(key);
+
+            assertThat(compiled)
+                    .as("%s 모양", shape)
+                    .isNotEmpty()
+                    .containsExactlyInAnyOrderElementsOf(repository.searchByBuilder(condition));
+            assertThat(searchQueries.countUpTo(key, Long.MAX_VALUE))
+                    .as("%s 모양의 네이티브 count", shape)
+                    .isEqualTo(compiled.size());
+        }
+    }
+}
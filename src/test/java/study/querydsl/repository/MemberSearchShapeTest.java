@@ -0,0 +1,35 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchShapeTest {
+
+    @Test
+    void shapeTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("");
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(30);
+
+        MemberSearchShape shape = MemberSearchShape.of(MemberSearchKey.from(condition));
+
+        //빈 문자열은 조건이 없는 것으로 본다
+        assertThat(shape.hasUsername()).isFalse();
+        assertThat(shape.getName()).isEqualTo("teamName+ageLoe");
+        //V3 와 같은 Querydsl 쿼리를 직렬화, 조건 값은 나오는 순서대로 위치 파라미터
+        assertThat(MemberSearchQueries.searchJpql(shape))
+                .contains("left join member1.team as team")
+                .endsWith("where team.name = ?1 and member1.age <= ?2");
+    }
+
+    @Test
+    void allShapesTest() {
+        assertThat(MemberSearchShape.all()).hasSize(16);
+        assertThat(MemberSearchShape.all()).extracting(MemberSearchShape::getName).doesNotHaveDuplicates();
+        assertThat(MemberSearchQueries.searchJpql(MemberSearchShape.all().get(0))).doesNotContain("where");
+    }
+}
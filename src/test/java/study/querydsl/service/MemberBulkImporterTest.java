@@ -0,0 +1,83 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberBulkImporterTest {
+
+    @Autowired
+    MemberBulkImporter importer;
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void importCsvTest() throws Exception {
+        em.persist(new Team("teamA"));
+
+        String csv = """
+                username,age,teamName
+                memberA,10,teamA
+                memberB,20,teamB
+                memberC,30,teamB
+                memberD,40,
+                """;
+
+        MemberImportResult result = importer.importMembers(stream(csv), MemberBulkImporter.Format.CSV);
+
+        assertThat(result.getRows()).isEqualTo(4);
+        //teamA는 이미 있으므로 teamB만 새로 생성
+        assertThat(result.getTeamsCreated()).isEqualTo(1);
+
+        Member memberC = repository.findByUsername("memberC").get(0);
+        assertThat(memberC.getAge()).isEqualTo(30);
+        assertThat(memberC.getTeam().getName()).isEqualTo("teamB");
+        assertThat(repository.findByUsername("memberD").get(0).getTeam()).isNull();
+    }
+
+    @Test
+    void importNdjsonTest() throws Exception {
+        String ndjson = """
+                {"username":"memberA","age":10,"teamName":"teamA"}
+                {"username":"memberB","age":20,"teamName":"teamA"}
+                """;
+
+        MemberImportResult result = importer.importMembers(stream(ndjson), MemberBulkImporter.Format.NDJSON);
+
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(result.getTeamsCreated()).isEqualTo(1);
+
+        List<Member> members = repository.findAll();
+        assertThat(members).extracting("username").containsExactlyInAnyOrder("memberA", "memberB");
+    }
+
+    @Test
+    void importInvalidLineTest() {
+        assertThatThrownBy(() -> importer.importMembers(stream("memberA,abc,teamA"), MemberBulkImporter.Format.CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1번째 줄");
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,135 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkJobProgress;
+import study.querydsl.entity.BulkJobCheckpoint;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QBulkJobCheckpoint.bulkJobCheckpoint;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크마다 REQUIRES_NEW 로 커밋하므로 테스트 트랜잭션으로 감싸지 않고 직접 정리한다.
+ */
+@SpringBootTest
+class MemberBulkOperationsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    JPAQueryFactory query;
+    MemberBulkOperations operations;
+    List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        query = new JPAQueryFactory(em);
+        operations = new MemberBulkOperations(em, transactionManager, 3, Duration.ZERO);
+        tx.executeWithoutResult(status -> {
+            for (int i = 1; i <= 10; i++) {
+                Member m = new Member("bulk" + i, i * 10);
+                em.persist(m);
+                ids.add(m.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            query.delete(member).where(member.username.startsWith("bulk")).execute();
+            query.delete(bulkJobCheckpoint).where(bulkJobCheckpoint.jobName.startsWith("test-")).execute();
+        });
+    }
+
+    @Test
+    void updateInChunks() {
+        List<BulkJobProgress> reported = new ArrayList<>();
+
+        BulkJobProgress result = operations.update("test-update",
+                member.username.startsWith("bulk").and(member.age.goe(30)),
+                update -> update.set(member.age, member.age.add(1)),
+                reported::add);
+
+        //30 ~ 100 살 8명 -> 3, 3, 2
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getProcessed()).isEqualTo(8);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(reported).extracting(BulkJobProgress::getProcessed).containsExactly(3L, 6L, 8L);
+        assertThat(ages()).containsExactly(10, 20, 31, 41, 51, 61, 71, 81, 91, 101);
+    }
+
+    @Test
+    void deleteResumesFromCheckpoint() {
+        //5번째 청크까지 처리하고 죽은 상태를 흉내낸다
+        tx.executeWithoutResult(status -> {
+            BulkJobCheckpoint checkpoint = new BulkJobCheckpoint("test-delete", "delete");
+            checkpoint.advance(ids.get(4), 5);
+            em.persist(checkpoint);
+        });
+
+        BulkJobProgress result = operations.delete("test-delete", member.username.startsWith("bulk"));
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getProcessed()).isEqualTo(10);
+        assertThat(ages()).containsExactly(10, 20, 30, 40, 50);
+
+        //완료된 작업은 다시 실행하지 않는다
+        BulkJobProgress again = operations.delete("test-delete", member.username.startsWith("bulk"));
+        assertThat(again.getProcessed()).isEqualTo(10);
+        assertThat(ages()).hasSize(5);
+    }
+
+    @Test
+    void concurrentRunsOfSameJobProcessEachChunkOnce() throws Exception {
+        ExecutorService runners = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<BulkJobProgress>> runs = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                runs.add(runners.submit(() -> operations.update("test-concurrent",
+                        member.username.startsWith("bulk"),
+                        update -> update.set(member.age, member.age.add(1)))));
+            }
+            for (Future<BulkJobProgress> run : runs) {
+                assertThat(run.get(30, TimeUnit.SECONDS).isCompleted()).isTrue();
+            }
+        } finally {
+            runners.shutdownNow();
+        }
+
+        //두 실행이 청크를 나눠 가졌더라도 회원마다 한 번씩만 +1
+        assertThat(ages()).containsExactly(11, 21, 31, 41, 51, 61, 71, 81, 91, 101);
+        BulkJobCheckpoint checkpoint = tx.execute(status -> em.find(BulkJobCheckpoint.class, "test-concurrent"));
+        assertThat(checkpoint.getProcessed()).isEqualTo(10);
+    }
+
+    private List<Integer> ages() {
+        return tx.execute(status -> query.select(member.age)
+                .from(member)
+                .where(member.username.startsWith("bulk"))
+                .orderBy(member.id.asc())
+                .fetch());
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.support;
+
+import study.querydsl.config.SqlStatementListener;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 테스트에서 실행된 SQL 을 기록
+ * use_sql_comments 로 붙는 앞쪽 주석은 떼고 소문자로 저장한다.
+ */
+public class SqlStatementRecorder implements SqlStatementListener {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void onStatement(String sql) {
+        statements.add(normalize(sql));
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    public List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    public List<String> selects() {
+        return statements.stream().filter(sql -> sql.startsWith("select")).toList();
+    }
+
+    private String normalize(String sql) {
+        String result = sql.strip();
+        while (result.startsWith("/*")) {
+            int end = result.indexOf("*/");
+            if (end < 0) {
+                break;
+            }
+            result = result.substring(end + 2).strip();
+        }
+        return result.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}